@@ -0,0 +1,193 @@
+package com.wherestrangersmeet.backend.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds how long a single read of a response body may block.
+ *
+ * The JDK client's read timeout only covers the response headers; once the body is being
+ * read, an upstream that stops sending (a stalled SSE stream, a half-written upload reply)
+ * would hold the reading thread forever. Each watched body records when the pending read
+ * started, and one daemon thread closes the underlying stream once a read has waited
+ * longer than the idle timeout. The blocked read then fails with a SocketTimeoutException.
+ */
+final class BodyReadWatchdog {
+
+    private final ScheduledThreadPoolExecutor timer;
+
+    BodyReadWatchdog() {
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "http-body-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    ClientHttpResponse watch(ClientHttpResponse response, Duration idleTimeout) {
+        return new WatchedResponse(response, idleTimeout.toNanos());
+    }
+
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private final class WatchedResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+        private final long idleNanos;
+        private WatchedBody body;
+
+        private WatchedResponse(ClientHttpResponse response, long idleNanos) {
+            this.response = response;
+            this.idleNanos = idleNanos;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new WatchedBody(response.getBody(), idleNanos);
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            try {
+                // The delegate drains what is left before closing; do it here so the drain is watched too
+                if (body != null) {
+                    StreamUtils.drain(body);
+                }
+            } catch (IOException ignored) {
+                // Closing anyway below
+            } finally {
+                if (body != null) {
+                    body.stop();
+                }
+                response.close();
+            }
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+    }
+
+    private final class WatchedBody extends FilterInputStream {
+
+        private final long idleNanos;
+        private volatile boolean reading;
+        private volatile long readStartedAt;
+        private volatile boolean timedOut;
+        private volatile boolean stopped;
+        private volatile ScheduledFuture<?> check;
+
+        private WatchedBody(InputStream in, long idleNanos) {
+            super(in);
+            this.idleNanos = idleNanos;
+            schedule(idleNanos);
+        }
+
+        @Override
+        public int read() throws IOException {
+            beginRead();
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw timedOut ? timeout() : e;
+            } finally {
+                reading = false;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            beginRead();
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                throw timedOut ? timeout() : e;
+            } finally {
+                reading = false;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            stop();
+            super.close();
+        }
+
+        private void beginRead() throws IOException {
+            if (timedOut) {
+                throw timeout();
+            }
+            readStartedAt = System.nanoTime();
+            reading = true;
+        }
+
+        private void stop() {
+            stopped = true;
+            ScheduledFuture<?> pending = check;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+
+        // Runs on the watchdog thread, roughly once per idle period while the body is open
+        private void check() {
+            if (stopped) {
+                return;
+            }
+            long waited = reading ? System.nanoTime() - readStartedAt : 0;
+            if (waited < idleNanos) {
+                schedule(idleNanos - waited);
+                return;
+            }
+            timedOut = true;
+            stopped = true;
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // The blocked read fails either way
+            }
+        }
+
+        private void schedule(long delayNanos) {
+            try {
+                check = timer.schedule(this::check, delayNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException ignored) {
+                // Shutting down
+            }
+        }
+
+        private SocketTimeoutException timeout() {
+            return new SocketTimeoutException(
+                    "No response data for " + TimeUnit.NANOSECONDS.toMillis(idleNanos) + " ms");
+        }
+    }
+}
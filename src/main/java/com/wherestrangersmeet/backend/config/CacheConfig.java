@@ -19,14 +19,14 @@ public class CacheConfig {
                 "presignedUrls",           // S3 URL cache
                 "userIdCache",             // Firebase UID → User ID
                 "firebaseUidCache",        // User ID → Firebase UID
-                "userCache",               // Full user objects
-                "userByFirebaseUidCache"   // User by Firebase UID
+                "userSnapshotCache",              // User ID → UserSnapshot
+                "userSnapshotByFirebaseUidCache"  // Firebase UID → UserSnapshot
         );
 
         cacheManager.setCaffeine(Caffeine.newBuilder()
                 .expireAfterWrite(10, TimeUnit.MINUTES) // User data expires after 10 min
                 .maximumSize(10000)                     // Max 10k entries total
-                .recordStats());                        // Enable cache statistics
+                .recordStats());                        // Stats served by /api/admin/caches + Micrometer
 
         return cacheManager;
     }
@@ -0,0 +1,121 @@
+package com.wherestrangersmeet.backend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wraps a request factory to time every exchange per operation and endpoint, tagged with
+ * the HTTP status or the exception class, and to expose the number of in-flight requests.
+ *
+ * A factory decorator rather than a ClientHttpRequestInterceptor: interceptors make
+ * RestTemplate buffer the whole request body, which would defeat streamed uploads.
+ * Latency is measured up to the response headers. Responses are handed to the
+ * {@link BodyReadWatchdog} so reading the body cannot block longer than the idle timeout.
+ */
+class MeteredClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+    private final ClientHttpRequestFactory delegate;
+    private final MeterRegistry meterRegistry;
+    private final String operation;
+    private final BodyReadWatchdog watchdog;
+    private final Duration bodyIdleTimeout;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    MeteredClientHttpRequestFactory(ClientHttpRequestFactory delegate, MeterRegistry meterRegistry, String operation,
+            BodyReadWatchdog watchdog, Duration bodyIdleTimeout) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.operation = operation;
+        this.watchdog = watchdog;
+        this.bodyIdleTimeout = bodyIdleTimeout;
+        Gauge.builder("openai.client.in_flight", inFlight, AtomicInteger::get)
+                .description("OpenAI requests currently waiting on a connection or response")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        return new MeteredRequest(delegate.createRequest(uri, httpMethod));
+    }
+
+    private final class MeteredRequest implements ClientHttpRequest, StreamingHttpOutputMessage {
+
+        private final ClientHttpRequest request;
+
+        private MeteredRequest(ClientHttpRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            inFlight.incrementAndGet();
+            String status = "none";
+            String exception = "none";
+            try {
+                ClientHttpResponse response = request.execute();
+                status = String.valueOf(response.getStatusCode().value());
+                return watchdog.watch(response, bodyIdleTimeout);
+            } catch (IOException | RuntimeException e) {
+                exception = e.getClass().getSimpleName();
+                throw e;
+            } finally {
+                inFlight.decrementAndGet();
+                sample.stop(Timer.builder("openai.client.requests")
+                        .description("OpenAI HTTP exchanges, up to the response headers")
+                        .tag("operation", operation)
+                        .tag("endpoint", request.getURI().getPath())
+                        .tag("status", status)
+                        .tag("exception", exception)
+                        .register(meterRegistry));
+            }
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            return request.getBody();
+        }
+
+        @Override
+        public void setBody(Body body) {
+            if (request instanceof StreamingHttpOutputMessage streaming) {
+                streaming.setBody(body);
+                return;
+            }
+            try {
+                body.writeTo(request.getBody());
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to write request body", e);
+            }
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return request.getHeaders();
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return request.getMethod();
+        }
+
+        @Override
+        public URI getURI() {
+            return request.getURI();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.wherestrangersmeet.backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Shared HTTP plumbing for OpenAI calls: one JDK HttpClient (HTTP/2, kept-alive connections
+ * reused across requests, connect timeout) and one RestTemplate per operation with its own
+ * read timeout. The JDK client applies that timeout to the response headers only, so the
+ * same value also bounds each read of the body (see {@link BodyReadWatchdog}); together they
+ * make a hung upstream release the calling thread instead of holding it forever.
+ *
+ * The JDK client does not expose pool statistics; the in-flight gauge per operation is the
+ * closest measure of connection use.
+ */
+@Component
+public class OpenAiHttpClients {
+
+    private final RestTemplate chat;
+    private final RestTemplate vision;
+    private final RestTemplate transcription;
+    private final BodyReadWatchdog watchdog = new BodyReadWatchdog();
+
+    public OpenAiHttpClients(
+            MeterRegistry meterRegistry,
+            @Value("${app.openai.http.connect-timeout-ms:5000}") long connectTimeoutMs,
+            @Value("${app.openai.http.chat-read-timeout-ms:30000}") long chatReadTimeoutMs,
+            @Value("${app.openai.http.vision-read-timeout-ms:60000}") long visionReadTimeoutMs,
+            @Value("${app.openai.http.transcription-read-timeout-ms:120000}") long transcriptionReadTimeoutMs) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        this.chat = restTemplate(httpClient, meterRegistry, watchdog, "chat", chatReadTimeoutMs);
+        this.vision = restTemplate(httpClient, meterRegistry, watchdog, "vision", visionReadTimeoutMs);
+        this.transcription = restTemplate(httpClient, meterRegistry, watchdog, "transcription",
+                transcriptionReadTimeoutMs);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        watchdog.shutdown();
+    }
+
+    /** Text chat completions (AI chat replies). */
+    public RestTemplate chat() {
+        return chat;
+    }
+
+    /** Chat completions carrying images (photo verification). */
+    public RestTemplate vision() {
+        return vision;
+    }
+
+    /** Whisper audio transcriptions. */
+    public RestTemplate transcription() {
+        return transcription;
+    }
+
+    private static RestTemplate restTemplate(HttpClient httpClient, MeterRegistry meterRegistry,
+            BodyReadWatchdog watchdog, String operation, long readTimeoutMs) {
+        Duration readTimeout = Duration.ofMillis(readTimeoutMs);
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout);
+        return new RestTemplate(new MeteredClientHttpRequestFactory(requestFactory, meterRegistry, operation,
+                watchdog, readTimeout));
+    }
+}
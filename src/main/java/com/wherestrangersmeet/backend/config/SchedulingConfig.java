@@ -0,0 +1,36 @@
+package com.wherestrangersmeet.backend.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+/**
+ * Runs the @Scheduled jobs (index rebuilds, cache resyncs, the invalidation flush) on their
+ * own pool. Without this they would fall back to the only TaskScheduler bean, the STOMP
+ * heartbeat scheduler, where one slow rebuild stalls every heartbeat.
+ */
+@Configuration
+public class SchedulingConfig implements SchedulingConfigurer, DisposableBean {
+
+    private final ThreadPoolTaskScheduler scheduler;
+
+    public SchedulingConfig(@Value("${app.scheduling.pool-size:4}") int poolSize) {
+        this.scheduler = new ThreadPoolTaskScheduler();
+        this.scheduler.setPoolSize(poolSize);
+        this.scheduler.setThreadNamePrefix("scheduled-");
+        this.scheduler.initialize();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.setTaskScheduler(scheduler);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdown();
+    }
+}
@@ -1,7 +1,7 @@
 package com.wherestrangersmeet.backend.config;
 
-import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseToken;
+import com.wherestrangersmeet.backend.security.FirebaseTokenVerifier;
 import com.wherestrangersmeet.backend.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,11 +26,13 @@ public class WebSocketAuthInterceptor implements ChannelInterceptor {
 
     private static final Logger log = LoggerFactory.getLogger(WebSocketAuthInterceptor.class);
     private final UserService userService;
+    private final FirebaseTokenVerifier tokenVerifier;
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
 
     // Use @Lazy to break circular dependency
-    public WebSocketAuthInterceptor(@Lazy UserService userService) {
+    public WebSocketAuthInterceptor(@Lazy UserService userService, FirebaseTokenVerifier tokenVerifier) {
         this.userService = userService;
+        this.tokenVerifier = tokenVerifier;
     }
 
     @Override
@@ -44,7 +46,7 @@ public class WebSocketAuthInterceptor implements ChannelInterceptor {
             if (authorization != null && !authorization.isEmpty()) {
                 String token = authorization.get(0).replace("Bearer ", "");
                 try {
-                    FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(token);
+                    FirebaseToken decodedToken = tokenVerifier.verify(token);
 
                     // Create minimal principal object
                     UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
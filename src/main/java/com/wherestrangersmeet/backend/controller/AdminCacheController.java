@@ -0,0 +1,59 @@
+package com.wherestrangersmeet.backend.controller;
+
+import com.wherestrangersmeet.backend.service.CacheInvalidationBroadcaster;
+import com.wherestrangersmeet.backend.service.CacheManagementService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/caches")
+public class AdminCacheController {
+
+    private final CacheManagementService cacheManagementService;
+    private final CacheInvalidationBroadcaster invalidationBroadcaster;
+
+    public AdminCacheController(CacheManagementService cacheManagementService,
+                                CacheInvalidationBroadcaster invalidationBroadcaster) {
+        this.cacheManagementService = cacheManagementService;
+        this.invalidationBroadcaster = invalidationBroadcaster;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> listCaches() {
+        return ResponseEntity.ok(cacheManagementService.getAllStats());
+    }
+
+    @GetMapping("/{name}")
+    public ResponseEntity<?> getCache(@PathVariable String name) {
+        try {
+            return ResponseEntity.ok(cacheManagementService.getStats(name));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{name}/invalidate")
+    public ResponseEntity<?> invalidateCache(@PathVariable String name) {
+        try {
+            cacheManagementService.invalidate(name);
+            invalidationBroadcaster.publishClear(name);
+            return ResponseEntity.ok(Map.of("invalidated", true));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{name}/warm")
+    public ResponseEntity<?> warmCache(@PathVariable String name) {
+        try {
+            int loaded = cacheManagementService.warm(name);
+            return ResponseEntity.ok(Map.of("warmed", true, "entries", loaded));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        } catch (UnsupportedOperationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
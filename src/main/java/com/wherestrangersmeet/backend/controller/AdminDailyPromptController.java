@@ -0,0 +1,51 @@
+package com.wherestrangersmeet.backend.controller;
+
+import com.wherestrangersmeet.backend.service.DailyPromptCalendar;
+import com.wherestrangersmeet.backend.service.DailyPromptService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/daily-prompts")
+@RequiredArgsConstructor
+public class AdminDailyPromptController {
+
+    private final DailyPromptService dailyPromptService;
+    private final DailyPromptCalendar dailyPromptCalendar;
+
+    @GetMapping
+    public ResponseEntity<?> listPrompts() {
+        return ResponseEntity.ok(dailyPromptService.listRecentPrompts());
+    }
+
+    @PutMapping("/{activeDate}")
+    public ResponseEntity<?> upsertPrompt(
+            @PathVariable String activeDate,
+            @RequestBody Map<String, String> payload) {
+        try {
+            return ResponseEntity.ok(dailyPromptService.upsertPrompt(
+                    LocalDate.parse(activeDate),
+                    payload.get("promptText")));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "activeDate must be YYYY-MM-DD"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/calendar/refresh")
+    public ResponseEntity<?> refreshCalendar() {
+        DailyPromptCalendar.Entry entry = dailyPromptCalendar.refresh();
+        Map<String, Object> body = new HashMap<>();
+        body.put("date", entry.date());
+        body.put("todayPrompt", entry.todayPrompt());
+        body.put("currentPrompt", entry.currentPrompt());
+        return ResponseEntity.ok(body);
+    }
+}
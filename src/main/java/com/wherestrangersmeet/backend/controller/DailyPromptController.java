@@ -1,9 +1,14 @@
 package com.wherestrangersmeet.backend.controller;
 
 import com.google.firebase.auth.FirebaseToken;
+import com.wherestrangersmeet.backend.model.DailyPrompt;
 import com.wherestrangersmeet.backend.model.DailyPromptResponse;
+import com.wherestrangersmeet.backend.model.FeedSlice;
+import com.wherestrangersmeet.backend.model.PromptAnswer;
 import com.wherestrangersmeet.backend.model.User;
+import com.wherestrangersmeet.backend.model.UserSnapshot;
 import com.wherestrangersmeet.backend.service.DailyPromptService;
+import com.wherestrangersmeet.backend.service.UserCache;
 import com.wherestrangersmeet.backend.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -13,9 +18,12 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/daily-prompts")
@@ -24,6 +32,7 @@ public class DailyPromptController {
 
     private final DailyPromptService dailyPromptService;
     private final UserService userService;
+    private final UserCache userCache;
 
     @GetMapping("/today")
     public ResponseEntity<?> getTodayPrompt(@AuthenticationPrincipal FirebaseToken principal) {
@@ -42,6 +51,47 @@ public class DailyPromptController {
         return ResponseEntity.ok(dailyPromptService.getTodayPromptState(user.getId()));
     }
 
+    @GetMapping("/answers")
+    public ResponseEntity<?> getAnswers(
+            @AuthenticationPrincipal FirebaseToken principal,
+            @RequestParam(required = false) Long promptId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Authentication failed - no valid Firebase token"));
+        }
+        if (size < 1 || size > 50) {
+            return ResponseEntity.badRequest().body(Map.of("error", "size must be between 1 and 50"));
+        }
+
+        Optional<UserSnapshot> viewer = userCache.getSnapshotByFirebaseUid(principal.getUid());
+        if (viewer.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "User not found"));
+        }
+
+        try {
+            FeedSlice<PromptAnswer> answers = dailyPromptService.getAnswers(
+                    promptId,
+                    cursor,
+                    size,
+                    userService.getBlockedRelationshipUserIds(viewer.get().id()));
+            Map<String, Object> body = new HashMap<>();
+            body.put("items", answers.items());
+            body.put("nextCursor", answers.nextCursor());
+            body.put("hasNext", answers.hasNext());
+            Long countedPromptId = promptId != null
+                    ? promptId
+                    : dailyPromptService.getCurrentOrLatestPrompt().map(DailyPrompt::getId).orElse(null);
+            body.put("promptId", countedPromptId);
+            body.put("responseCount", countedPromptId != null ? dailyPromptService.getResponseCount(countedPromptId) : 0);
+            return ResponseEntity.ok(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PostMapping("/today/response")
     public ResponseEntity<?> submitTodayResponse(
             @AuthenticationPrincipal FirebaseToken principal,
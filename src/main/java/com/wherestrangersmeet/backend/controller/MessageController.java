@@ -3,6 +3,7 @@ package com.wherestrangersmeet.backend.controller;
 import com.google.firebase.auth.FirebaseToken;
 import com.wherestrangersmeet.backend.model.Message;
 import com.wherestrangersmeet.backend.model.User;
+import com.wherestrangersmeet.backend.model.UserSnapshot;
 import com.wherestrangersmeet.backend.service.MessageService;
 import com.wherestrangersmeet.backend.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -34,6 +35,11 @@ public class MessageController {
     private final SimpMessagingTemplate messagingTemplate;
     private final com.wherestrangersmeet.backend.service.MediaFileService mediaFileService;
 
+    private UserSnapshot requireCurrentUser(FirebaseToken principal) {
+        return userCache.getSnapshotByFirebaseUid(principal.getUid())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    }
+
     // Send a message via HTTP
     @PostMapping
     public ResponseEntity<Message> sendMessage(
@@ -43,12 +49,11 @@ public class MessageController {
         if (principal == null)
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
 
-        User sender = userService.getUserByFirebaseUid(principal.getUid())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        UserSnapshot sender = requireCurrentUser(principal);
 
         Long receiverId = ((Number) payload.get("receiverId")).longValue();
 
-        if (sender.getId().equals(receiverId)) {
+        if (sender.id().equals(receiverId)) {
             return ResponseEntity.badRequest().build();
         }
 
@@ -61,7 +66,7 @@ public class MessageController {
         Long replyToId = replyToIdObj != null ? ((Number) replyToIdObj).longValue() : null;
 
         try {
-            Message message = messageService.sendMessage(sender.getId(), receiverId, text, messageType, attachmentUrl,
+            Message message = messageService.sendMessage(sender.id(), receiverId, text, messageType, attachmentUrl,
                     replyToId, attachmentHash);
             return ResponseEntity.ok(message);
         } catch (IllegalArgumentException e) {
@@ -69,7 +74,7 @@ public class MessageController {
                     Message.builder()
                             .text(e.getMessage())
                             .messageType("MODERATION_BLOCKED")
-                            .senderId(sender.getId())
+                            .senderId(sender.id())
                             .receiverId(receiverId)
                             .build());
         } catch (IllegalStateException e) {
@@ -187,15 +192,15 @@ public class MessageController {
             Boolean isTyping = (Boolean) payload.get("isTyping");
 
             // Get receiver's Firebase UID
-            userService.getUserById(receiverId).ifPresent(receiver -> {
-                if (receiver.getFirebaseUid() != null) {
+            userCache.getSnapshot(receiverId).ifPresent(receiver -> {
+                if (receiver.firebaseUid() != null) {
                     // Send typing status to receiver
                     Map<String, Object> typingUpdate = new java.util.HashMap<>();
                     typingUpdate.put("isTyping", isTyping);
                     typingUpdate.put("timestamp", System.currentTimeMillis());
 
                     messagingTemplate.convertAndSendToUser(
-                            receiver.getFirebaseUid(),
+                            receiver.firebaseUid(),
                             "/queue/typing",
                             typingUpdate);
                 }
@@ -248,8 +253,7 @@ public class MessageController {
         if (principal == null)
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
 
-        User currentUser = userService.getUserByFirebaseUid(principal.getUid())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        UserSnapshot currentUser = requireCurrentUser(principal);
 
         java.time.LocalDateTime beforeCreated = null;
         if (beforeCreatedAt != null && beforeId != null) {
@@ -260,7 +264,7 @@ public class MessageController {
             }
         }
 
-        List<Message> messages = messageService.getConversation(currentUser.getId(), otherUserId, size, beforeCreated,
+        List<Message> messages = messageService.getConversation(currentUser.id(), otherUserId, size, beforeCreated,
                 beforeId);
         return ResponseEntity.ok(messages);
     }
@@ -273,10 +277,9 @@ public class MessageController {
         if (principal == null)
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
 
-        User currentUser = userService.getUserByFirebaseUid(principal.getUid())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        UserSnapshot currentUser = requireCurrentUser(principal);
 
-        List<Map<String, Object>> conversations = messageService.getConversations(currentUser.getId());
+        List<Map<String, Object>> conversations = messageService.getConversations(currentUser.id());
         return ResponseEntity.ok(conversations);
     }
 
@@ -289,11 +292,10 @@ public class MessageController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        User currentUser = userService.getUserByFirebaseUid(principal.getUid())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        UserSnapshot currentUser = requireCurrentUser(principal);
 
         try {
-            User partner = messageService.findChatPartnerByPublicId(currentUser.getId(), publicId);
+            User partner = messageService.findChatPartnerByPublicId(currentUser.id(), publicId);
 
             if (partner.getAvatarUrl() != null) {
                 partner.setAvatarUrl(fileStorageService.generatePresignedUrl(partner.getAvatarUrl()));
@@ -329,10 +331,9 @@ public class MessageController {
         if (principal == null)
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
 
-        User currentUser = userService.getUserByFirebaseUid(principal.getUid())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        UserSnapshot currentUser = requireCurrentUser(principal);
 
-        messageService.markAsRead(currentUser.getId(), senderId);
+        messageService.markAsRead(currentUser.id(), senderId);
         return ResponseEntity.ok().build();
     }
 
@@ -344,11 +345,10 @@ public class MessageController {
         if (principal == null)
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
 
-        User currentUser = userService.getUserByFirebaseUid(principal.getUid())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        UserSnapshot currentUser = requireCurrentUser(principal);
 
         try {
-            messageService.deleteMessage(id, currentUser.getId());
+            messageService.deleteMessage(id, currentUser.id());
             return ResponseEntity.ok().build();
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT).build();
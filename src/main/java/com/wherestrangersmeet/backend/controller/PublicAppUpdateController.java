@@ -1,29 +1,48 @@
 package com.wherestrangersmeet.backend.controller;
 
 import com.wherestrangersmeet.backend.service.AppUpdateService;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
 @RestController
 @RequestMapping("/api/public/app-update")
-@RequiredArgsConstructor
 public class PublicAppUpdateController {
 
     private final AppUpdateService appUpdateService;
+    private final CacheControl cacheControl;
+
+    public PublicAppUpdateController(
+            AppUpdateService appUpdateService,
+            @Value("${app.update.cache-max-age-seconds:300}") long cacheMaxAgeSeconds) {
+        this.appUpdateService = appUpdateService;
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(cacheMaxAgeSeconds)).cachePublic();
+    }
 
     @GetMapping
     public ResponseEntity<?> getUpdateStatus(
             @RequestParam String platform,
-            @RequestParam String currentVersion) {
+            @RequestParam String currentVersion,
+            WebRequest request) {
         try {
-            return ResponseEntity.ok(appUpdateService.getUpdateStatus(platform, currentVersion));
+            Map<String, Object> status = appUpdateService.getUpdateStatus(platform, currentVersion);
+            // Strong ETag over the exact payload; the map is ordered, so equal payloads hash equally
+            String etag = "\"" + DigestUtils.md5DigestAsHex(status.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(304).eTag(etag).cacheControl(cacheControl).build();
+            }
+            return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(status);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (NoSuchElementException e) {
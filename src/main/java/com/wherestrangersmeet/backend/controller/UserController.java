@@ -1,18 +1,33 @@
 package com.wherestrangersmeet.backend.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.firebase.auth.FirebaseToken;
+import com.wherestrangersmeet.backend.model.FeedCard;
+import com.wherestrangersmeet.backend.model.FeedPage;
+import com.wherestrangersmeet.backend.model.FeedSlice;
+import com.wherestrangersmeet.backend.model.ProfilePhotoCheck;
 import com.wherestrangersmeet.backend.model.User;
 import com.wherestrangersmeet.backend.service.FileStorageService;
 import com.wherestrangersmeet.backend.service.MediaFileService;
 import com.wherestrangersmeet.backend.service.DailyPromptService;
+import com.wherestrangersmeet.backend.service.FeedCardService;
+import com.wherestrangersmeet.backend.service.MeProfileService;
 import com.wherestrangersmeet.backend.service.UserService;
+import com.wherestrangersmeet.backend.service.VerificationJobService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Map;
@@ -27,10 +42,15 @@ import org.springframework.web.multipart.MultipartFile;
 public class UserController {
 
     private static final Logger log = LoggerFactory.getLogger(UserController.class);
+    private static final String FEED_SNAPSHOT_HEADER = "X-Feed-Snapshot";
     private final UserService userService;
     private final FileStorageService fileStorageService;
     private final MediaFileService mediaFileService;
     private final DailyPromptService dailyPromptService;
+    private final FeedCardService feedCardService;
+    private final MeProfileService meProfileService;
+    private final VerificationJobService verificationJobService;
+    private final ObjectMapper objectMapper;
 
     private User getOrCreateCurrentUser(FirebaseToken principal) {
         if (principal == null) {
@@ -69,13 +89,15 @@ public class UserController {
 
     /**
      * GET /api/users
-     * Get all users for the feed
+     * Get all users for the feed. The X-Feed-Snapshot response header identifies the ordering;
+     * pass it back as ?snapshot= for later pages. 410 means the ordering expired: reload page 0.
      */
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers(
+    public ResponseEntity<List<FeedCard>> getAllUsers(
             @AuthenticationPrincipal FirebaseToken principal,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(name = "snapshot", required = false) Long snapshotVersion) {
 
         if (principal == null) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -84,33 +106,38 @@ public class UserController {
         String currentUid = principal.getUid();
 
         // Use the paginated service method
-        org.springframework.data.domain.Page<User> userPage = userService.getFeedUsers(currentUid, page, size);
-        List<User> users = userPage.getContent();
-
-        // Process avatar URLs and photos for the current page
-        users.parallelStream().forEach(user -> {
-            // Process avatar
-            if (user.getAvatarUrl() != null) {
-                user.setAvatarUrl(fileStorageService.generatePresignedUrl(user.getAvatarUrl()));
-            }
+        FeedPage idPage = userService.getFeedUserIds(currentUid, page, size, snapshotVersion);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (idPage.snapshotVersion() != null) {
+            response.header(FEED_SNAPSHOT_HEADER, idPage.snapshotVersion().toString());
+        }
+        return response.body(feedCardService.loadCards(idPage.ids()));
+    }
 
-            // Process photos
-            if (user.getPhotos() != null) {
-                user.getPhotos().parallelStream().forEach(photo -> {
-                    if (photo.getUrl() != null) {
-                        photo.setUrl(fileStorageService.generatePresignedUrl(photo.getUrl()));
-                    }
-                });
-            }
+    /**
+     * GET /api/users/feed
+     * Cursor-paginated feed; pass nextCursor from the previous response to continue
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<?> getFeed(
+            @AuthenticationPrincipal FirebaseToken principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
 
-            // Process voice intro
-            if (user.getVoiceIntroUrl() != null) {
-                user.setVoiceIntroUrl(fileStorageService.generatePresignedUrl(user.getVoiceIntroUrl()));
-            }
-        });
-        dailyPromptService.attachTodayPromptState(users);
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (size < 1 || size > 50) {
+            return ResponseEntity.badRequest().body(Map.of("error", "size must be between 1 and 50"));
+        }
 
-        return ResponseEntity.ok(users);
+        try {
+            FeedSlice<Long> slice = userService.getFeedSlice(principal.getUid(), cursor, size);
+            List<FeedCard> cards = feedCardService.loadCards(slice.items());
+            return ResponseEntity.ok(new FeedSlice<>(cards, slice.nextCursor(), slice.hasNext()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     /**
@@ -118,7 +145,7 @@ public class UserController {
      * Get current user profile
      */
     @GetMapping("/me")
-    public ResponseEntity<?> getUserProfile(@AuthenticationPrincipal FirebaseToken principal) {
+    public ResponseEntity<?> getUserProfile(@AuthenticationPrincipal FirebaseToken principal, WebRequest request) {
         // System.out.println("========== GET /api/users/me ==========");
         // System.out.println("Principal: " + (principal != null ? principal.getUid() :
         // "NULL"));
@@ -133,52 +160,39 @@ public class UserController {
         // System.out.println("Email: " + principal.getEmail());
         // System.out.println("Name: " + principal.getName());
 
-        // Automatically create user if they don't exist (Sync from Firebase)
-        User user = userService.createUserIfNew(
-                principal.getUid(),
-                principal.getEmail(),
-                principal.getName(),
-                principal.getPicture());
-
-        // System.out.println("User retrieved/created: ID=" + user.getId() + ", UID=" +
-        // user.getFirebaseUid());
-        // System.out.println("Photos found: " + (user.getPhotos() != null ?
-        // user.getPhotos().size() : "NULL"));
-
-        // Convert R2 keys to Presigned URLs
-        if (user.getAvatarUrl() != null) {
-            String presigned = fileStorageService.generatePresignedUrl(user.getAvatarUrl());
-            user.setAvatarUrl(presigned);
-        }
-
-        // Parallel presigned URL generation for better performance
-        if (user.getPhotos() != null) {
-            user.getPhotos().parallelStream().forEach(photo -> {
-                if (photo.getUrl() != null) {
-                    String presigned = fileStorageService.generatePresignedUrl(photo.getUrl());
-                    photo.setUrl(presigned);
-                }
-            });
-        }
-
-        // Convert voice intro key to Presigned URL
-        if (user.getVoiceIntroUrl() != null) {
-            String presigned = fileStorageService.generatePresignedUrl(user.getVoiceIntroUrl());
-            user.setVoiceIntroUrl(presigned);
-        }
-
-        if (user.getStickerKeys() != null) {
-            List<String> presignedStickers = new ArrayList<>();
-            for (String key : user.getStickerKeys()) {
-                presignedStickers.add(fileStorageService.generatePresignedUrl(key));
-            }
-            user.setStickerKeys(presignedStickers);
-        }
-        dailyPromptService.attachTodayPromptState(user);
+        // Existing users are served from the cached, presigned profile; only a first
+        // sign-in goes through the read-write createUserIfNew (Sync from Firebase)
+        MeProfileService.MeProfile profile = meProfileService.find(principal.getUid())
+                .orElseGet(() -> {
+                    userService.createUserIfNew(
+                            principal.getUid(),
+                            principal.getEmail(),
+                            principal.getName(),
+                            principal.getPicture());
+                    return meProfileService.find(principal.getUid())
+                            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+                });
 
-        // System.out.println("========================================");
+        ObjectNode body = profile.body().deepCopy();
+        body.setAll((ObjectNode) objectMapper.valueToTree(dailyPromptService.getPromptState(profile.userId())));
 
-        return ResponseEntity.ok(user);
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize profile", e);
+        }
+        String etag = "\"" + DigestUtils.md5DigestAsHex(payload) + "\"";
+        // Private and always revalidated: the app gets a 304 when nothing changed
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(payload);
     }
 
     @GetMapping("/stickers")
@@ -611,33 +625,60 @@ public class UserController {
 
     /**
      * POST /api/users/photos/confirm
-     * Confirm photo upload and save to user_photos
+     * Confirm photo upload and save to user_photos. The AI check runs as a verification job:
+     * with async=true the job id comes back at once (202) and the saved photo arrives with the
+     * result on /queue/verification; otherwise the response waits for the job without holding
+     * a request thread.
      */
     @PostMapping("/photos/confirm")
-    public ResponseEntity<?> confirmPhotoUpload(
+    public DeferredResult<ResponseEntity<?>> confirmPhotoUpload(
             @AuthenticationPrincipal FirebaseToken principal,
             @RequestBody Map<String, String> request,
-            @RequestParam(required = false, defaultValue = "false") boolean skipVerification) {
+            @RequestParam(required = false, defaultValue = "false") boolean skipVerification,
+            @RequestParam(required = false, defaultValue = "false") boolean async) {
 
         User user = getOrCreateCurrentUser(principal);
 
         String key = request.get("key");
         if (key == null || key.isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Key is required"));
+            return VerificationJobService.completed(ResponseEntity.badRequest().body(Map.of("error", "Key is required")));
         }
 
         try {
-            var photo = userService.addUserPhoto(user.getId(), key, skipVerification);
+            if (skipVerification) {
+                var photo = userService.attachUserPhoto(user.getId(), key);
 
-            // Convert to Presigned URL for immediate display
-            if (photo.getUrl() != null) {
-                String presigned = fileStorageService.generatePresignedUrl(photo.getUrl());
-                photo.setUrl(presigned);
+                // Convert to Presigned URL for immediate display
+                if (photo.getUrl() != null) {
+                    String presigned = fileStorageService.generatePresignedUrl(photo.getUrl());
+                    photo.setUrl(presigned);
+                }
+                return VerificationJobService.completed(ResponseEntity.ok(photo));
             }
 
-            return ResponseEntity.ok(photo);
+            if (verificationJobService.isAtCapacity()) {
+                return VerificationJobService.completed(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(Map.of("error", "Verification is busy right now. Please try again shortly.")));
+            }
+            ProfilePhotoCheck check = userService.prepareProfilePhotoCheck(user.getId(), key);
+            VerificationJobService.Submission submission =
+                    verificationJobService.submitProfilePhoto(principal.getUid(), check);
+            if (async) {
+                return VerificationJobService.completed(ResponseEntity.accepted().body(submission.initial()));
+            }
+            return verificationJobService.respondWhenDone(submission, principal.getUid(), update -> {
+                Map<String, Object> result = update.result();
+                if (Boolean.TRUE.equals(result.get("valid")) && result.get("photo") != null) {
+                    return ResponseEntity.ok(result.get("photo"));
+                }
+                Object errorMsg = result.getOrDefault("message", "Photo verification failed");
+                return ResponseEntity.badRequest().body(Map.of("error", "Verification failed: " + errorMsg));
+            });
+        } catch (ResponseStatusException e) {
+            return VerificationJobService.completed(ResponseEntity.status(e.getStatusCode())
+                    .body(Map.of("error", e.getReason())));
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            return VerificationJobService.completed(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
         }
     }
 
@@ -2,6 +2,8 @@ package com.wherestrangersmeet.backend.controller;
 
 import com.wherestrangersmeet.backend.service.OpenAIService;
 import com.wherestrangersmeet.backend.service.UserService;
+import com.wherestrangersmeet.backend.service.VerificationJobService;
+import com.wherestrangersmeet.backend.model.StagedUpload;
 import com.wherestrangersmeet.backend.model.User;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
@@ -10,9 +12,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 import com.google.firebase.auth.FirebaseToken;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import java.time.Instant;
 import java.util.HashMap;
@@ -21,6 +26,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
 
 @RestController
 @RequestMapping("/api/verification")
@@ -34,6 +40,9 @@ public class VerificationController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private VerificationJobService verificationJobService;
+
     @Value("${app.verification.photo.blocking:true}")
     private boolean photoVerificationBlocking;
 
@@ -44,10 +53,18 @@ public class VerificationController {
     private final Map<String, List<Instant>> requestCounts = new ConcurrentHashMap<>();
     private static final int MAX_REQUESTS_PER_HOUR = 30;
 
+    /**
+     * POST /api/verification/photos
+     * Verify two photos as a background job. With async=true the job id comes back at once
+     * (202) and the result arrives on /queue/verification or via GET /jobs/{jobId}; otherwise
+     * the response is held open without a request thread until the job is done.
+     * Rate limited per IP in both modes; 503 while the job queue is full.
+     */
     @PostMapping("/photos")
-    public ResponseEntity<Map<String, Object>> verifyPhotos(
+    public DeferredResult<ResponseEntity<?>> verifyPhotos(
             @AuthenticationPrincipal FirebaseToken principal,
             @RequestParam(name = "aiConsentAccepted", required = false) Boolean aiConsentAccepted,
+            @RequestParam(name = "async", required = false, defaultValue = "false") boolean async,
             @RequestParam("photo1") MultipartFile photo1,
             @RequestParam("photo2") MultipartFile photo2,
             HttpServletRequest request) {
@@ -55,7 +72,7 @@ public class VerificationController {
         if (photoVerificationBlocking) {
             ResponseEntity<Map<String, Object>> consentError = requireAiConsent(principal, aiConsentAccepted);
             if (consentError != null) {
-                return consentError;
+                return VerificationJobService.completed(consentError);
             }
         } else {
             log.warn("Photo verification is running in NON-BLOCKING mode.");
@@ -64,39 +81,75 @@ public class VerificationController {
         log.info("Verification request received from IP: {}", request.getRemoteAddr());
         String clientIp = request.getRemoteAddr();
 
-        if (photoVerificationBlocking && isRateLimited(clientIp)) {
+        // Also in non-blocking mode: every request still queues a job and stages two uploads
+        if (isRateLimited(clientIp)) {
             log.warn("Rate limit exceeded for IP: {}", clientIp);
-            return ResponseEntity.status(429)
+            return VerificationJobService.completed(ResponseEntity.status(429)
                     .body(Map.of("message", "Too many verification attempts (" + MAX_REQUESTS_PER_HOUR
-                            + "/hour). Please try again later."));
+                            + "/hour). Please try again later.")));
         }
 
-        try {
-            log.debug("Calling OpenAIService for photo verification");
-            Map<String, Object> result = openAIService.verifyPhotos(photo1, photo2);
-            log.debug("OpenAIService returned result: {}", result);
-
-            if (result == null) {
-                log.error("OpenAI Service returned null");
-                if (!photoVerificationBlocking) {
-                    return ResponseEntity.ok(buildNonBlockingPhotoResponse(null, "OpenAI returned null result."));
-                }
-                return ResponseEntity.internalServerError().body(Map.of("message", "Internal Error: OpenAI Service returned null"));
-            }
+        if (verificationJobService.isAtCapacity()) {
+            log.warn("Verification job queue full, refusing request from IP: {}", clientIp);
+            return VerificationJobService.completed(verificationBusy());
+        }
 
-            if (!photoVerificationBlocking) {
-                return ResponseEntity.ok(buildNonBlockingPhotoResponse(result, null));
-            }
+        UnaryOperator<Map<String, Object>> presenter = photoVerificationBlocking
+                ? UnaryOperator.identity()
+                : result -> buildNonBlockingPhotoResponse(result, null);
+
+        Map<String, Object> sizeError = openAIService.photoSizeError(photo1.getSize(), photo2.getSize());
+        if (sizeError != null) {
+            return VerificationJobService.completed(ResponseEntity.ok(presenter.apply(sizeError)));
+        }
 
-            return ResponseEntity.ok(result);
+        // The multipart parts are gone once this request returns, so the job works from temp copies
+        StagedUpload staged1 = null;
+        StagedUpload staged2;
+        try {
+            staged1 = StagedUpload.stage(photo1);
+            staged2 = StagedUpload.stage(photo2);
         } catch (Exception e) {
+            if (staged1 != null) {
+                staged1.delete();
+            }
             log.error("Verification failed: {}", e.getMessage(), e);
             if (!photoVerificationBlocking) {
-                return ResponseEntity.ok(buildNonBlockingPhotoResponse(null, "Verification service error: " + e.getClass().getSimpleName()));
+                return VerificationJobService.completed(ResponseEntity.ok(buildNonBlockingPhotoResponse(null,
+                        "Verification service error: " + e.getClass().getSimpleName())));
             }
-            return ResponseEntity.internalServerError()
-                    .body(Map.of("message", "Verification failed: " + e.getMessage()));
+            return VerificationJobService.completed(ResponseEntity.internalServerError()
+                    .body(Map.of("message", "Verification failed: " + e.getMessage())));
         }
+
+        String ownerUid = principal != null ? principal.getUid() : null;
+        VerificationJobService.Submission submission;
+        try {
+            submission = verificationJobService.submitPhotoPair(ownerUid, staged1, staged2, presenter);
+        } catch (ResponseStatusException e) {
+            // Filled up since the check above; the staged files are already deleted
+            return VerificationJobService.completed(verificationBusy());
+        }
+        if (async) {
+            return VerificationJobService.completed(ResponseEntity.accepted().body(submission.initial()));
+        }
+        return verificationJobService.respondWhenDone(submission, ownerUid, update -> ResponseEntity.ok(update.result()));
+    }
+
+    /**
+     * GET /api/verification/jobs/{jobId}
+     * Poll a verification job submitted with async=true. Jobs are held by the node that
+     * accepted them, so with several instances this needs sticky sessions; another node
+     * answers 404.
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getJob(
+            @AuthenticationPrincipal FirebaseToken principal,
+            @PathVariable String jobId) {
+        String requesterUid = principal != null ? principal.getUid() : null;
+        return verificationJobService.find(jobId, requesterUid)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Job not found")));
     }
 
     /**
@@ -220,13 +273,15 @@ public class VerificationController {
 
         try {
             String mimeType = photo.getContentType() != null ? photo.getContentType() : "image/jpeg";
-            String base64Photo = java.util.Base64.getEncoder().encodeToString(photo.getBytes());
 
-            Map<String, Object> aiResult = openAIService.verifyPhotoBase64(
-                    base64Photo,
-                    mimeType,
-                    java.util.Collections.emptyList()
-            );
+            Map<String, Object> aiResult;
+            try (java.io.InputStream image = photo.getInputStream()) {
+                aiResult = openAIService.verifyPhotoStream(
+                        image,
+                        mimeType,
+                        java.util.Collections.emptyList()
+                );
+            }
             if (aiResult == null) {
                 log.warn("Selfie verification returned null AI result");
                 return ResponseEntity.ok(Map.of(
@@ -337,6 +392,12 @@ public class VerificationController {
         return s.toLowerCase().replaceAll("[^a-z ]", "").trim().replaceAll("\\s+", " ");
     }
 
+    private ResponseEntity<Map<String, Object>> verificationBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "10")
+                .body(Map.of("message", "Verification is busy right now. Please try again shortly."));
+    }
+
     private boolean isRateLimited(String ip) {
         Instant now = Instant.now();
         requestCounts.computeIfAbsent(ip, k -> new ArrayList<>());
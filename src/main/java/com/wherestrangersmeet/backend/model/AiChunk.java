@@ -0,0 +1,44 @@
+package com.wherestrangersmeet.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+/**
+ * A piece of a streamed @momo reply, sent on /queue/messages next to regular messages.
+ * Clients append delta to the bubble for streamId in seq order. The last frame has
+ * done=true and the id of the persisted message, which replaces the bubble.
+ *
+ * If the stream fails midway the last frame has done=true and aborted=true instead:
+ * clients drop the partial bubble, and the fallback reply follows as a regular message.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AiChunk(
+        String messageType,
+        String streamId,
+        Long senderId,
+        Long receiverId,
+        int seq,
+        String delta,
+        boolean done,
+        Boolean aborted,
+        Long messageId,
+        LocalDateTime createdAt) {
+
+    public static final String TYPE = "AI_CHUNK";
+
+    public static AiChunk delta(String streamId, Message trigger, int seq, String delta, LocalDateTime createdAt) {
+        return new AiChunk(TYPE, streamId, trigger.getSenderId(), trigger.getReceiverId(), seq, delta, false,
+                null, null, createdAt);
+    }
+
+    public static AiChunk done(String streamId, Message trigger, int seq, Long messageId, LocalDateTime createdAt) {
+        return new AiChunk(TYPE, streamId, trigger.getSenderId(), trigger.getReceiverId(), seq, null, true,
+                null, messageId, createdAt);
+    }
+
+    public static AiChunk aborted(String streamId, Message trigger, int seq, LocalDateTime createdAt) {
+        return new AiChunk(TYPE, streamId, trigger.getSenderId(), trigger.getReceiverId(), seq, null, true,
+                true, null, createdAt);
+    }
+}
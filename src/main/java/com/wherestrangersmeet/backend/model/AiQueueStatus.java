@@ -0,0 +1,29 @@
+package com.wherestrangersmeet.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sent on /queue/messages to the user who summoned @momo when their request cannot start
+ * right away: AI_QUEUED with their place in line, or AI_BUSY when it was turned away.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AiQueueStatus(
+        String messageType,
+        Long senderId,
+        Long receiverId,
+        Integer position,
+        String text,
+        LocalDateTime createdAt) {
+
+    public static AiQueueStatus queued(Message trigger, int position, LocalDateTime createdAt) {
+        return new AiQueueStatus("AI_QUEUED", trigger.getSenderId(), trigger.getReceiverId(), position,
+                "MOMO AI is busy, you're #" + position + " in line...", createdAt);
+    }
+
+    public static AiQueueStatus busy(Message trigger, LocalDateTime createdAt) {
+        return new AiQueueStatus("AI_BUSY", trigger.getSenderId(), trigger.getReceiverId(), null,
+                "MOMO AI already has your earlier requests. Please wait for those replies first.", createdAt);
+    }
+}
@@ -0,0 +1,43 @@
+package com.wherestrangersmeet.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Rolling AI summary of a conversation, covering every message up to coveredUntilMessageId.
+ * The pair is stored with the smaller user id first.
+ */
+@Entity
+@Table(name = "conversation_summaries", indexes = {
+        @Index(name = "idx_conversation_summaries_pair", columnList = "user_low_id, user_high_id", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_low_id", nullable = false)
+    private Long userLowId;
+
+    @Column(name = "user_high_id", nullable = false)
+    private Long userHighId;
+
+    @Column(name = "summary_text", nullable = false, columnDefinition = "TEXT")
+    private String summaryText;
+
+    @Column(name = "covered_until_message_id", nullable = false)
+    private Long coveredUntilMessageId;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -28,6 +28,10 @@ public class DailyPrompt {
     @Column(name = "active_date", nullable = false, unique = true)
     private LocalDate activeDate;
 
+    // Maintained by submitTodayResponse (atomic increment); backfilled at startup for older rows
+    @Column(name = "response_count", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long responseCount = 0L;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
         @UniqueConstraint(name = "uk_daily_prompt_user", columnNames = { "daily_prompt_id", "user_id" })
 }, indexes = {
         @Index(name = "idx_daily_prompt_responses_user", columnList = "user_id"),
-        @Index(name = "idx_daily_prompt_responses_prompt", columnList = "daily_prompt_id")
+        @Index(name = "idx_daily_prompt_responses_prompt", columnList = "daily_prompt_id"),
+        @Index(name = "idx_daily_prompt_responses_prompt_created", columnList = "daily_prompt_id, created_at, id")
 })
 @Data
 @NoArgsConstructor
@@ -0,0 +1,16 @@
+package com.wherestrangersmeet.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import java.util.List;
+
+/**
+ * Feed read model. Serializes to the same field names the feed used to get from User,
+ * minus everything the feed never shows (email, phone, fcm token, consent, stickers).
+ */
+public record FeedCard(
+        @JsonUnwrapped FeedProfile profile,
+        List<String> interestTags,
+        List<FeedPhoto> photos,
+        @JsonUnwrapped PromptState promptState) {
+}
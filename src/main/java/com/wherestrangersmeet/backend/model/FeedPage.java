@@ -0,0 +1,10 @@
+package com.wherestrangersmeet.backend.model;
+
+import java.util.List;
+
+/**
+ * One page of the offset-paginated feed. snapshotVersion identifies the ordering the page was
+ * cut from (null when no snapshot was used); clients send it back with the next page.
+ */
+public record FeedPage(List<Long> ids, Long snapshotVersion) {
+}
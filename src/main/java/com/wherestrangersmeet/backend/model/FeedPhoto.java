@@ -0,0 +1,16 @@
+package com.wherestrangersmeet.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+public record FeedPhoto(
+        @JsonIgnore Long userId,
+        Long id,
+        String url,
+        LocalDateTime createdAt) {
+
+    public FeedPhoto withUrl(String url) {
+        return new FeedPhoto(userId, id, url, createdAt);
+    }
+}
@@ -0,0 +1,36 @@
+package com.wherestrangersmeet.backend.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Scalar profile columns shown on a feed card. Loaded with a constructor projection,
+ * so none of the User entity's EAGER collections are touched.
+ */
+public record FeedProfile(
+        Long id,
+        String publicId,
+        String name,
+        String avatarUrl,
+        Double avatarCropX,
+        Double avatarCropY,
+        Double avatarCropScale,
+        String bio,
+        Double rating,
+        Boolean isOnline,
+        LocalDateTime lastActive,
+        String voiceIntroUrl,
+        User.Gender gender,
+        String futureGoals,
+        User.OccupationStatus occupationStatus,
+        String occupationTitle,
+        String institution,
+        String occupationYear,
+        String occupationDescription,
+        LocalDateTime createdAt) {
+
+    public FeedProfile withMediaUrls(String avatarUrl, String voiceIntroUrl) {
+        return new FeedProfile(id, publicId, name, avatarUrl, avatarCropX, avatarCropY, avatarCropScale,
+                bio, rating, isOnline, lastActive, voiceIntroUrl, gender, futureGoals, occupationStatus,
+                occupationTitle, institution, occupationYear, occupationDescription, createdAt);
+    }
+}
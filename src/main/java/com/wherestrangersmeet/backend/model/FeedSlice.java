@@ -0,0 +1,10 @@
+package com.wherestrangersmeet.backend.model;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paginated feed. There is deliberately no total count;
+ * pass nextCursor back to fetch the following page while hasNext is true.
+ */
+public record FeedSlice<T>(List<T> items, String nextCursor, boolean hasNext) {
+}
@@ -0,0 +1,11 @@
+package com.wherestrangersmeet.backend.model;
+
+import java.util.List;
+
+/**
+ * Everything needed to verify a newly uploaded profile photo off the request thread:
+ * the new photo's storage key and presigned URL, plus presigned URLs of the user's
+ * existing photos as references.
+ */
+public record ProfilePhotoCheck(Long userId, String fileKey, String verificationUrl, List<String> referenceUrls) {
+}
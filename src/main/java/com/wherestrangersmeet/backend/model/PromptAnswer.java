@@ -0,0 +1,16 @@
+package com.wherestrangersmeet.backend.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the daily prompt answers feed.
+ */
+public record PromptAnswer(
+        Long id,
+        String answer,
+        LocalDateTime answeredAt,
+        Long userId,
+        String publicId,
+        String name,
+        String avatarUrl) {
+}
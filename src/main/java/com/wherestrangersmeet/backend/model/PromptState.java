@@ -0,0 +1,42 @@
+package com.wherestrangersmeet.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * The daily prompt shown on a user's card: the answered prompt if any, otherwise the
+ * current prompt unanswered. Field names match the transient prompt fields on User.
+ */
+public record PromptState(
+        @JsonInclude(JsonInclude.Include.NON_NULL) Long todayPromptId,
+        @JsonInclude(JsonInclude.Include.NON_NULL) LocalDate todayPromptDate,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String todayPromptText,
+        Boolean todayPromptAnswered,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String todayPromptAnswer,
+        @JsonInclude(JsonInclude.Include.NON_NULL) LocalDateTime todayPromptAnsweredAt) {
+
+    public static PromptState none() {
+        return new PromptState(null, null, null, false, null, null);
+    }
+
+    public static PromptState answered(DailyPrompt prompt, DailyPromptResponse response) {
+        return new PromptState(prompt.getId(), prompt.getActiveDate(), prompt.getPromptText(),
+                true, response.getAnswerText(), response.getCreatedAt());
+    }
+
+    public static PromptState unanswered(DailyPrompt prompt) {
+        return new PromptState(prompt.getId(), prompt.getActiveDate(), prompt.getPromptText(),
+                false, null, null);
+    }
+
+    public void applyTo(User user) {
+        user.setTodayPromptId(todayPromptId);
+        user.setTodayPromptDate(todayPromptDate);
+        user.setTodayPromptText(todayPromptText);
+        user.setTodayPromptAnswered(todayPromptAnswered);
+        user.setTodayPromptAnswer(todayPromptAnswer);
+        user.setTodayPromptAnsweredAt(todayPromptAnsweredAt);
+    }
+}
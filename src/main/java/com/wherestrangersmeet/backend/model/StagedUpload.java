@@ -0,0 +1,33 @@
+package com.wherestrangersmeet.backend.model;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A multipart upload copied to a temp file while the request is still open, so a background
+ * job can read it after the servlet container has cleaned up the original part.
+ */
+public record StagedUpload(Path path, String contentType, long size) {
+
+    public static StagedUpload stage(MultipartFile file) throws IOException {
+        Path path = Files.createTempFile("upload-", ".tmp");
+        try {
+            file.transferTo(path);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        return new StagedUpload(path, file.getContentType(), file.getSize());
+    }
+
+    public void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Left for the OS temp cleaner
+        }
+    }
+}
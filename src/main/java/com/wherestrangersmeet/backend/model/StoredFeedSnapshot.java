@@ -0,0 +1,38 @@
+package com.wherestrangersmeet.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Shared copy of a viewer's feed snapshot, so any node can serve the later pages.
+ * candidateIds holds the ranked ids packed as big-endian longs.
+ */
+@Entity
+@Table(name = "feed_snapshots", indexes = {
+        @Index(name = "idx_feed_snapshots_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredFeedSnapshot {
+
+    @Id
+    @Column(name = "viewer_id")
+    private Long viewerId;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(nullable = false)
+    private boolean truncated;
+
+    @Column(name = "candidate_ids", nullable = false, columnDefinition = "bytea")
+    private byte[] candidateIds;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -14,7 +15,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_last_prompt_answered_on_id", columnList = "last_prompt_answered_on, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -73,6 +76,11 @@ public class User {
     @Column(name = "last_active")
     private LocalDateTime lastActive;
 
+    // Active date of the latest daily prompt this user answered; drives feed ordering
+    @JsonIgnore
+    @Column(name = "last_prompt_answered_on")
+    private LocalDate lastPromptAnsweredOn;
+
     @Column(name = "fcm_token")
     private String fcmToken;
 
@@ -0,0 +1,22 @@
+package com.wherestrangersmeet.backend.model;
+
+/**
+ * Immutable, compact view of the user fields needed on hot paths (message delivery,
+ * push notifications, consent checks). Safe to share from a cache because nothing
+ * can mutate it, unlike the managed User entity with its EAGER collections.
+ */
+public record UserSnapshot(
+        Long id,
+        String firebaseUid,
+        String name,
+        String fcmToken,
+        Boolean aiConsentAccepted,
+        String aiConsentVersion,
+        Boolean momoConsentAccepted,
+        String momoConsentVersion,
+        String avatarKey) {
+
+    public boolean hasFcmToken() {
+        return fcmToken != null && !fcmToken.isEmpty();
+    }
+}
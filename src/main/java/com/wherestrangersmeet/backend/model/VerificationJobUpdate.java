@@ -0,0 +1,22 @@
+package com.wherestrangersmeet.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * State of a verification job, as returned by the poll endpoint and pushed on
+ * /queue/verification once the job is DONE. result is the verification payload
+ * (valid, message, ...) and is absent until then.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record VerificationJobUpdate(
+        String messageType,
+        String jobId,
+        String kind,
+        String status,
+        int attempts,
+        Map<String, Object> result,
+        LocalDateTime updatedAt) {
+}
@@ -2,10 +2,21 @@ package com.wherestrangersmeet.backend.repository;
 
 import com.wherestrangersmeet.backend.model.BannedEmail;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface BannedEmailRepository extends JpaRepository<BannedEmail, Long> {
     boolean existsByEmail(String email);
     Optional<BannedEmail> findByEmail(String email);
+
+    @Query("SELECT b.email FROM BannedEmail b")
+    List<String> findAllEmails();
+
+    @Query("SELECT MAX(b.createdAt) FROM BannedEmail b")
+    Optional<LocalDateTime> findMaxCreatedAt();
+
+    List<BannedEmail> findByCreatedAtGreaterThanEqual(LocalDateTime since);
 }
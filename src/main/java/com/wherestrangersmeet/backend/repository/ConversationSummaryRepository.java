@@ -0,0 +1,30 @@
+package com.wherestrangersmeet.backend.repository;
+
+import com.wherestrangersmeet.backend.model.ConversationSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface ConversationSummaryRepository extends JpaRepository<ConversationSummary, Long> {
+
+    Optional<ConversationSummary> findByUserLowIdAndUserHighId(Long userLowId, Long userHighId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ConversationSummary s WHERE s.id = :id")
+    Optional<ConversationSummary> findByIdForUpdate(@Param("id") Long id);
+
+    // Drops a summary that already folded in the given message (e.g. it was deleted since)
+    @Modifying
+    @Query("""
+            DELETE FROM ConversationSummary s
+            WHERE s.userLowId = :userLowId AND s.userHighId = :userHighId
+              AND s.coveredUntilMessageId >= :messageId
+            """)
+    int deleteCovering(@Param("userLowId") Long userLowId, @Param("userHighId") Long userHighId,
+            @Param("messageId") Long messageId);
+}
@@ -2,12 +2,53 @@ package com.wherestrangersmeet.backend.repository;
 
 import com.wherestrangersmeet.backend.model.DailyPrompt;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 public interface DailyPromptRepository extends JpaRepository<DailyPrompt, Long> {
     Optional<DailyPrompt> findByActiveDate(LocalDate activeDate);
 
     Optional<DailyPrompt> findTopByOrderByActiveDateDesc();
+
+    List<DailyPrompt> findTop60ByOrderByActiveDateDesc();
+
+    @Query("SELECT p.responseCount FROM DailyPrompt p WHERE p.id = :id")
+    Optional<Long> findResponseCount(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE DailyPrompt p SET p.responseCount = p.responseCount + 1 WHERE p.id = :id")
+    int incrementResponseCount(@Param("id") Long id);
+
+    // True while a prompt with responses still has a zero counter (written before the counter existed)
+    @Query(value = """
+            SELECT EXISTS (
+                SELECT 1
+                FROM daily_prompts dp
+                WHERE dp.response_count = 0
+                  AND EXISTS (SELECT 1 FROM daily_prompt_responses dpr WHERE dpr.daily_prompt_id = dp.id)
+            )
+            """, nativeQuery = true)
+    boolean needsResponseCountBackfill();
+
+    // Reconciles counters with the responses table, e.g. for rows written before the counter existed
+    @Modifying
+    @Transactional
+    @Query(value = """
+            UPDATE daily_prompts dp
+            SET response_count = counts.total
+            FROM (
+                SELECT daily_prompt_id, COUNT(*) AS total
+                FROM daily_prompt_responses
+                GROUP BY daily_prompt_id
+            ) counts
+            WHERE counts.daily_prompt_id = dp.id
+              AND dp.response_count <> counts.total
+            """, nativeQuery = true)
+    int backfillResponseCounts();
 }
@@ -12,15 +12,6 @@ import java.util.Optional;
 public interface DailyPromptResponseRepository extends JpaRepository<DailyPromptResponse, Long> {
     Optional<DailyPromptResponse> findByDailyPromptIdAndUserId(Long dailyPromptId, Long userId);
 
-    @Query("""
-            SELECT r FROM DailyPromptResponse r
-            WHERE r.user.id = :userId
-            ORDER BY r.dailyPrompt.activeDate DESC, r.createdAt DESC
-            """)
-    List<DailyPromptResponse> findLatestByUserId(
-            @Param("userId") Long userId,
-            org.springframework.data.domain.Pageable pageable);
-
     @Query("""
             SELECT r FROM DailyPromptResponse r
             WHERE r.user.id IN :userIds
@@ -30,10 +21,41 @@ public interface DailyPromptResponseRepository extends JpaRepository<DailyPrompt
             @Param("userIds") List<Long> userIds,
             @Param("activeDate") LocalDate activeDate);
 
-    @Query("""
-            SELECT r FROM DailyPromptResponse r
-            WHERE r.user.id IN :userIds
-            ORDER BY r.user.id ASC, r.dailyPrompt.activeDate DESC, r.createdAt DESC
-            """)
-    List<DailyPromptResponse> findLatestByUserIds(@Param("userIds") List<Long> userIds);
+    /**
+     * Exactly one latest response per user (DISTINCT ON), whatever their answer history:
+     * user_id, prompt id, prompt text, active date, answer text, created at.
+     */
+    @Query(value = """
+            SELECT DISTINCT ON (dpr.user_id)
+                dpr.user_id, dp.id, dp.prompt_text, dp.active_date, dpr.answer_text, dpr.created_at
+            FROM daily_prompt_responses dpr
+            JOIN daily_prompts dp ON dp.id = dpr.daily_prompt_id
+            WHERE dpr.user_id IN :userIds
+            ORDER BY dpr.user_id, dp.active_date DESC, dpr.created_at DESC
+            """, nativeQuery = true)
+    List<Object[]> findLatestResponseRows(@Param("userIds") List<Long> userIds);
+
+    /**
+     * Keyset page of answers to one prompt, newest first, from live users outside the viewer's
+     * block set: response id, answer text, created at, user id, public id, name, avatar key.
+     * Walks idx_daily_prompt_responses_prompt_created, so every page costs the same.
+     */
+    @Query(value = """
+            SELECT dpr.id, dpr.answer_text, dpr.created_at, u.id AS user_id, u.public_id, u.name, u.avatar_url
+            FROM daily_prompt_responses dpr
+            JOIN users u ON u.id = dpr.user_id
+            WHERE dpr.daily_prompt_id = :promptId
+              AND (dpr.created_at, dpr.id) < (:beforeCreatedAt, :beforeId)
+              AND dpr.user_id NOT IN :excludedIds
+              AND u.deleted_at IS NULL
+              AND u.hidden = false
+            ORDER BY dpr.created_at DESC, dpr.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Object[]> findAnswerPage(
+            @Param("promptId") Long promptId,
+            @Param("beforeCreatedAt") java.time.LocalDateTime beforeCreatedAt,
+            @Param("beforeId") long beforeId,
+            @Param("excludedIds") List<Long> excludedIds,
+            @Param("limit") int limit);
 }
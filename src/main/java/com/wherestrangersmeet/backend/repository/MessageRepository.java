@@ -1,10 +1,13 @@
 package com.wherestrangersmeet.backend.repository;
 
 import com.wherestrangersmeet.backend.model.Message;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface MessageRepository extends JpaRepository<Message, Long> {
@@ -31,12 +34,34 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
 
         List<Message> findBySenderIdAndReceiverIdAndIsReadFalse(Long senderId, Long receiverId);
 
-        // Context Neighborhood Queries
-        @Query("SELECT m FROM Message m WHERE ((m.senderId = :userId1 AND m.receiverId = :userId2) OR (m.senderId = :userId2 AND m.receiverId = :userId1)) AND m.id < :targetId ORDER BY m.id DESC")
-        List<Message> findTop5Before(@Param("userId1") Long userId1, @Param("userId2") Long userId2,
-                        @Param("targetId") Long targetId, org.springframework.data.domain.Pageable pageable);
+        // Context Neighborhood: up to :size messages on each side of the target, in one round trip
+        @Query(value = """
+                        (SELECT m.* FROM messages m
+                         WHERE ((m.sender_id = :userId1 AND m.receiver_id = :userId2) OR (m.sender_id = :userId2 AND m.receiver_id = :userId1))
+                           AND m.id < :targetId
+                         ORDER BY m.id DESC
+                         LIMIT :size)
+                        UNION ALL
+                        (SELECT m.* FROM messages m
+                         WHERE ((m.sender_id = :userId1 AND m.receiver_id = :userId2) OR (m.sender_id = :userId2 AND m.receiver_id = :userId1))
+                           AND m.id > :targetId
+                         ORDER BY m.id ASC
+                         LIMIT :size)
+                        """, nativeQuery = true)
+        List<Message> findNeighborhood(@Param("userId1") Long userId1, @Param("userId2") Long userId2,
+                        @Param("targetId") Long targetId, @Param("size") int size);
 
-        @Query("SELECT m FROM Message m WHERE ((m.senderId = :userId1 AND m.receiverId = :userId2) OR (m.senderId = :userId2 AND m.receiverId = :userId1)) AND m.id > :targetId ORDER BY m.id ASC")
-        List<Message> findTop5After(@Param("userId1") Long userId1, @Param("userId2") Long userId2,
-                        @Param("targetId") Long targetId, org.springframework.data.domain.Pageable pageable);
+        // Messages not yet folded into the conversation summary (id order; ids are assigned in insert order)
+        @Query("SELECT m FROM Message m WHERE ((m.senderId = :userId1 AND m.receiverId = :userId2) OR (m.senderId = :userId2 AND m.receiverId = :userId1)) AND m.id > :afterId ORDER BY m.id DESC")
+        List<Message> findConversationAfterId(@Param("userId1") Long userId1, @Param("userId2") Long userId2,
+                        @Param("afterId") Long afterId, org.springframework.data.domain.Pageable pageable);
+
+        @Query("SELECT COUNT(m) FROM Message m WHERE ((m.senderId = :userId1 AND m.receiverId = :userId2) OR (m.senderId = :userId2 AND m.receiverId = :userId1)) AND m.id > :afterId")
+        long countConversationAfterId(@Param("userId1") Long userId1, @Param("userId2") Long userId2,
+                        @Param("afterId") Long afterId);
+
+        // FOR SHARE: a concurrent delete of one of these rows waits for the caller's transaction
+        @Lock(LockModeType.PESSIMISTIC_READ)
+        @Query("SELECT m FROM Message m WHERE m.id IN :ids")
+        List<Message> lockAllByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,36 @@
+package com.wherestrangersmeet.backend.repository;
+
+import com.wherestrangersmeet.backend.model.StoredFeedSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface StoredFeedSnapshotRepository extends JpaRepository<StoredFeedSnapshot, Long> {
+
+    // One row per viewer; two nodes building page 0 at once must not trip over the primary key
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO feed_snapshots (viewer_id, version, truncated, candidate_ids, created_at)
+            VALUES (:viewerId, :version, :truncated, :candidateIds, :createdAt)
+            ON CONFLICT (viewer_id) DO UPDATE
+            SET version = EXCLUDED.version,
+                truncated = EXCLUDED.truncated,
+                candidate_ids = EXCLUDED.candidate_ids,
+                created_at = EXCLUDED.created_at
+            """, nativeQuery = true)
+    int upsert(@Param("viewerId") Long viewerId,
+            @Param("version") long version,
+            @Param("truncated") boolean truncated,
+            @Param("candidateIds") byte[] candidateIds,
+            @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StoredFeedSnapshot s WHERE s.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
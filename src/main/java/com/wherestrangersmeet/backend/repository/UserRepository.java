@@ -1,10 +1,15 @@
 package com.wherestrangersmeet.backend.repository;
 
+import com.wherestrangersmeet.backend.model.FeedPhoto;
+import com.wherestrangersmeet.backend.model.FeedProfile;
 import com.wherestrangersmeet.backend.model.User;
+import com.wherestrangersmeet.backend.model.UserSnapshot;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,26 +31,55 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.isOnline = true AND u.deletedAt IS NULL")
     List<User> findByIsOnlineTrue();
 
+    // Bounded variants for cache warming: (id, firebaseUid) pairs, and full users for media
+    @Query("SELECT u.id, u.firebaseUid FROM User u WHERE u.isOnline = true AND u.deletedAt IS NULL ORDER BY u.lastActive DESC")
+    List<Object[]> findOnlineUidPairs(Pageable pageable);
+
+    @Query("SELECT u FROM User u WHERE u.isOnline = true AND u.deletedAt IS NULL ORDER BY u.lastActive DESC")
+    List<User> findOnlineUsers(Pageable pageable);
+
     boolean existsByPublicId(String publicId);
 
-    // Pagination support: find users who are NOT the current user AND have at least one photo
+    // (id, name) pairs for transcript labels; soft-deleted users keep their name
+    @Query("SELECT u.id, u.name FROM User u WHERE u.id IN :ids")
+    List<Object[]> findNamesByIds(@Param("ids") Collection<Long> ids);
+
+    // Includes soft-deleted users: their ids still hold the unique constraint
+    @Query("SELECT u.publicId FROM User u WHERE u.publicId IN :publicIds")
+    List<String> findExistingPublicIds(@Param("publicIds") Collection<String> publicIds);
+
+    // Compact read models for UserCache: one row, no EAGER collections
+    @Query("""
+            SELECT new com.wherestrangersmeet.backend.model.UserSnapshot(
+                u.id, u.firebaseUid, u.name, u.fcmToken,
+                u.aiConsentAccepted, u.aiConsentVersion,
+                u.momoConsentAccepted, u.momoConsentVersion,
+                u.avatarUrl)
+            FROM User u
+            WHERE u.id = :id
+            """)
+    Optional<UserSnapshot> findSnapshotById(@Param("id") Long id);
+
+    @Query("""
+            SELECT new com.wherestrangersmeet.backend.model.UserSnapshot(
+                u.id, u.firebaseUid, u.name, u.fcmToken,
+                u.aiConsentAccepted, u.aiConsentVersion,
+                u.momoConsentAccepted, u.momoConsentVersion,
+                u.avatarUrl)
+            FROM User u
+            WHERE u.firebaseUid = :firebaseUid AND u.deletedAt IS NULL
+            """)
+    Optional<UserSnapshot> findSnapshotByFirebaseUid(@Param("firebaseUid") String firebaseUid);
+
+    // Pagination support: ids of users who are NOT the current user AND have at least one photo
     @Query(value = """
-            SELECT *
+            SELECT u.id
             FROM users u
             WHERE u.firebase_uid <> :firebaseUid
               AND EXISTS (SELECT 1 FROM user_photos up WHERE up.user_id = u.id)
               AND u.deleted_at IS NULL
               AND u.hidden = false
-            ORDER BY CASE
-                WHEN EXISTS (
-                    SELECT 1
-                    FROM daily_prompt_responses dpr
-                    JOIN daily_prompts dp ON dp.id = dpr.daily_prompt_id
-                    WHERE dpr.user_id = u.id
-                      AND dp.active_date = :activeDate
-                ) THEN 0
-                ELSE 1
-            END,
+            ORDER BY CASE WHEN u.last_prompt_answered_on = :activeDate THEN 0 ELSE 1 END,
             u.id DESC
             """, countQuery = """
             SELECT COUNT(*)
@@ -55,29 +89,20 @@ public interface UserRepository extends JpaRepository<User, Long> {
               AND u.deleted_at IS NULL
               AND u.hidden = false
             """, nativeQuery = true)
-    Page<User> findByFirebaseUidNotAndPhotosIsNotEmpty(
+    Page<Long> findFeedUserIds(
             @Param("firebaseUid") String firebaseUid,
             @Param("activeDate") java.time.LocalDate activeDate,
             Pageable pageable);
 
     @Query(value = """
-            SELECT *
+            SELECT u.id
             FROM users u
             WHERE u.firebase_uid <> :firebaseUid
               AND EXISTS (SELECT 1 FROM user_photos up WHERE up.user_id = u.id)
               AND u.deleted_at IS NULL
               AND u.hidden = false
               AND u.id NOT IN :excludedIds
-            ORDER BY CASE
-                WHEN EXISTS (
-                    SELECT 1
-                    FROM daily_prompt_responses dpr
-                    JOIN daily_prompts dp ON dp.id = dpr.daily_prompt_id
-                    WHERE dpr.user_id = u.id
-                      AND dp.active_date = :activeDate
-                ) THEN 0
-                ELSE 1
-            END,
+            ORDER BY CASE WHEN u.last_prompt_answered_on = :activeDate THEN 0 ELSE 1 END,
             u.id DESC
             """, countQuery = """
             SELECT COUNT(*)
@@ -88,12 +113,177 @@ public interface UserRepository extends JpaRepository<User, Long> {
               AND u.hidden = false
               AND u.id NOT IN :excludedIds
             """, nativeQuery = true)
-    Page<User> findFeedUsersExcludingIds(
+    Page<Long> findFeedUserIdsExcludingIds(
             @Param("firebaseUid") String firebaseUid,
             @Param("excludedIds") List<Long> excludedIds,
             @Param("activeDate") java.time.LocalDate activeDate,
             Pageable pageable);
 
+    // Feed card read model: scalar columns, photos and interests for a page of users, one query each
+    @Query("""
+            SELECT new com.wherestrangersmeet.backend.model.FeedProfile(
+                u.id, u.publicId, u.name, u.avatarUrl,
+                u.avatarCropX, u.avatarCropY, u.avatarCropScale,
+                u.bio, u.rating, u.isOnline, u.lastActive, u.voiceIntroUrl,
+                u.gender, u.futureGoals, u.occupationStatus, u.occupationTitle,
+                u.institution, u.occupationYear, u.occupationDescription, u.createdAt)
+            FROM User u
+            WHERE u.id IN :ids AND u.deletedAt IS NULL AND u.hidden = false
+            """)
+    List<FeedProfile> findFeedProfiles(@Param("ids") List<Long> ids);
+
+    @Query("""
+            SELECT new com.wherestrangersmeet.backend.model.FeedPhoto(p.user.id, p.id, p.url, p.createdAt)
+            FROM UserPhoto p
+            WHERE p.user.id IN :userIds
+            ORDER BY p.id
+            """)
+    List<FeedPhoto> findFeedPhotos(@Param("userIds") List<Long> userIds);
+
+    @Query(value = "SELECT ui.user_id, ui.interest FROM user_interests ui WHERE ui.user_id IN :userIds",
+            nativeQuery = true)
+    List<Object[]> findInterestRows(@Param("userIds") List<Long> userIds);
+
+    // Feed ranking features: (id, lastActive, lastPromptAnsweredOn) and (id, interest) rows for live users
+    @Query("SELECT u.id, u.lastActive, u.lastPromptAnsweredOn FROM User u WHERE u.deletedAt IS NULL")
+    List<Object[]> findRankingFeatures();
+
+    @Query("SELECT u.id, u.lastActive, u.lastPromptAnsweredOn FROM User u WHERE u.id IN :ids AND u.deletedAt IS NULL")
+    List<Object[]> findRankingFeaturesByIds(@Param("ids") List<Long> ids);
+
+    @Query("SELECT u.id, t FROM User u JOIN u.interestTags t WHERE u.deletedAt IS NULL")
+    List<Object[]> findAllInterestRows();
+
+    // Ordered candidate ids for a viewer's feed snapshot; same filters and ordering as the paged feed
+    @Query(value = """
+            SELECT u.id
+            FROM users u
+            WHERE u.firebase_uid <> :firebaseUid
+              AND EXISTS (SELECT 1 FROM user_photos up WHERE up.user_id = u.id)
+              AND u.deleted_at IS NULL
+              AND u.hidden = false
+              AND u.id NOT IN :excludedIds
+            ORDER BY CASE WHEN u.last_prompt_answered_on = :activeDate THEN 0 ELSE 1 END,
+            u.id DESC
+            LIMIT :maxCandidates
+            """, nativeQuery = true)
+    List<Long> findFeedCandidateIds(
+            @Param("firebaseUid") String firebaseUid,
+            @Param("excludedIds") List<Long> excludedIds,
+            @Param("activeDate") java.time.LocalDate activeDate,
+            @Param("maxCandidates") int maxCandidates);
+
+    // Feed ids beyond a truncated snapshot: every candidate it did not hold, in the paged feed's order
+    @Query(value = """
+            SELECT u.id
+            FROM users u
+            WHERE u.firebase_uid <> :firebaseUid
+              AND EXISTS (SELECT 1 FROM user_photos up WHERE up.user_id = u.id)
+              AND u.deleted_at IS NULL
+              AND u.hidden = false
+              AND u.id NOT IN :excludedIds
+            ORDER BY CASE WHEN u.last_prompt_answered_on = :activeDate THEN 0 ELSE 1 END,
+            u.id DESC
+            LIMIT :limit OFFSET :offset
+            """, nativeQuery = true)
+    List<Long> findFeedUserIdsPastSnapshot(
+            @Param("firebaseUid") String firebaseUid,
+            @Param("excludedIds") List<Long> excludedIds,
+            @Param("activeDate") java.time.LocalDate activeDate,
+            @Param("offset") long offset,
+            @Param("limit") int limit);
+
+    // Keyset feed segments: users who answered today's prompt first, then everyone else, each by id DESC
+    @Query(value = """
+            SELECT u.id
+            FROM users u
+            WHERE u.firebase_uid <> :firebaseUid
+              AND EXISTS (SELECT 1 FROM user_photos up WHERE up.user_id = u.id)
+              AND u.deleted_at IS NULL
+              AND u.hidden = false
+              AND u.id NOT IN :excludedIds
+              AND u.last_prompt_answered_on = :activeDate
+              AND u.id < :afterId
+            ORDER BY u.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> findAnsweredFeedIds(
+            @Param("firebaseUid") String firebaseUid,
+            @Param("excludedIds") List<Long> excludedIds,
+            @Param("activeDate") java.time.LocalDate activeDate,
+            @Param("afterId") long afterId,
+            @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT u.id
+            FROM users u
+            WHERE u.firebase_uid <> :firebaseUid
+              AND EXISTS (SELECT 1 FROM user_photos up WHERE up.user_id = u.id)
+              AND u.deleted_at IS NULL
+              AND u.hidden = false
+              AND u.id NOT IN :excludedIds
+              AND (u.last_prompt_answered_on IS NULL OR u.last_prompt_answered_on <> :activeDate)
+              AND u.id < :afterId
+            ORDER BY u.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> findUnansweredFeedIds(
+            @Param("firebaseUid") String firebaseUid,
+            @Param("excludedIds") List<Long> excludedIds,
+            @Param("activeDate") java.time.LocalDate activeDate,
+            @Param("afterId") long afterId,
+            @Param("limit") int limit);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.lastPromptAnsweredOn = :answeredOn WHERE u.id = :userId")
+    int updateLastPromptAnsweredOn(
+            @Param("userId") Long userId,
+            @Param("answeredOn") java.time.LocalDate answeredOn);
+
+    // True while some responder still lacks last_prompt_answered_on, i.e. the catch-up below has work to do
+    @Query(value = """
+            SELECT EXISTS (
+                SELECT 1
+                FROM daily_prompt_responses dpr
+                JOIN users u ON u.id = dpr.user_id
+                WHERE u.last_prompt_answered_on IS NULL
+            )
+            """, nativeQuery = true)
+    boolean needsLastPromptAnsweredOnBackfill();
+
+    // One-off catch-up for rows written before last_prompt_answered_on existed
+    @Modifying
+    @Transactional
+    @Query(value = """
+            UPDATE users u
+            SET last_prompt_answered_on = latest.active_date
+            FROM (
+                SELECT dpr.user_id, MAX(dp.active_date) AS active_date
+                FROM daily_prompt_responses dpr
+                JOIN daily_prompts dp ON dp.id = dpr.daily_prompt_id
+                GROUP BY dpr.user_id
+            ) latest
+            WHERE latest.user_id = u.id
+              AND u.last_prompt_answered_on IS DISTINCT FROM latest.active_date
+            """, nativeQuery = true)
+    int backfillLastPromptAnsweredOn();
+
+    // Legacy rows without a public id, in id order so the backfill can resume after afterId
+    @Query(value = """
+            SELECT id, firebase_uid
+            FROM users
+            WHERE (public_id IS NULL OR public_id = '')
+              AND id > :afterId
+            ORDER BY id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Object[]> findIdsMissingPublicId(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.publicId = :publicId WHERE u.id = :userId AND (u.publicId IS NULL OR u.publicId = '')")
+    int assignPublicIdIfMissing(@Param("userId") Long userId, @Param("publicId") String publicId);
+
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query("""
             UPDATE User u
@@ -1,6 +1,5 @@
 package com.wherestrangersmeet.backend.security;
 
-import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -21,10 +20,20 @@ public class FirebaseAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(FirebaseAuthenticationFilter.class);
 
-    private final FirebaseAuth firebaseAuth;
+    private final FirebaseTokenVerifier tokenVerifier;
 
-    public FirebaseAuthenticationFilter(FirebaseAuth firebaseAuth) {
-        this.firebaseAuth = firebaseAuth;
+    public FirebaseAuthenticationFilter(FirebaseTokenVerifier tokenVerifier) {
+        this.tokenVerifier = tokenVerifier;
+    }
+
+    /**
+     * Deferred responses (e.g. verification jobs) complete on an ASYNC dispatch that starts
+     * with an empty security context, so authenticate that dispatch too. Verification is a
+     * cache hit by then.
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
     }
 
     @Override
@@ -51,7 +60,7 @@ public class FirebaseAuthenticationFilter extends OncePerRequestFilter {
             }
 
             try {
-                FirebaseToken decodedToken = firebaseAuth.verifyIdToken(idToken);
+                FirebaseToken decodedToken = tokenVerifier.verify(idToken);
 
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         decodedToken,
@@ -0,0 +1,117 @@
+package com.wherestrangersmeet.backend.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+import com.wherestrangersmeet.backend.service.CacheManagementService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies Firebase ID tokens once and reuses the decoded token until it expires.
+ *
+ * Clients send the same ID token for up to an hour, so without this every request pays
+ * for an RSA signature check and claim parsing. Entries are keyed by a SHA-256 of the
+ * token (raw tokens are never held) and expire at the token's exp claim. With
+ * app.auth.check-revoked enabled, tokens are verified against the revocation list and
+ * only cached for a short window, bounding how long a revoked session keeps working.
+ */
+@Component
+public class FirebaseTokenVerifier {
+
+    static final String CACHE_NAME = "firebaseTokens";
+
+    private final FirebaseAuth firebaseAuth;
+    private final CacheManagementService cacheManagementService;
+    private final boolean checkRevoked;
+    private final long revokedCheckWindowNanos;
+    private final Cache<String, FirebaseToken> tokens;
+
+    public FirebaseTokenVerifier(
+            FirebaseAuth firebaseAuth,
+            CacheManagementService cacheManagementService,
+            @Value("${app.auth.check-revoked:false}") boolean checkRevoked,
+            @Value("${app.auth.revoked-check-window-seconds:60}") long revokedCheckWindowSeconds,
+            @Value("${app.auth.token-cache-max-size:50000}") long maxSize) {
+        this.firebaseAuth = firebaseAuth;
+        this.cacheManagementService = cacheManagementService;
+        this.checkRevoked = checkRevoked;
+        this.revokedCheckWindowNanos = TimeUnit.SECONDS.toNanos(revokedCheckWindowSeconds);
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, FirebaseToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, FirebaseToken token, long currentTime) {
+                        return ttlNanos(token);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, FirebaseToken token, long currentTime,
+                            long currentDuration) {
+                        return ttlNanos(token);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, FirebaseToken token, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    @PostConstruct
+    void registerCache() {
+        cacheManagementService.register(CACHE_NAME, tokens);
+    }
+
+    public FirebaseToken verify(String idToken) throws FirebaseAuthException {
+        String key = hash(idToken);
+        FirebaseToken cached = tokens.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Failures are not cached: a bad token throws here on every attempt
+        FirebaseToken decoded = checkRevoked
+                ? firebaseAuth.verifyIdToken(idToken, true)
+                : firebaseAuth.verifyIdToken(idToken);
+        if (ttlNanos(decoded) > 0) {
+            tokens.put(key, decoded);
+        }
+        return decoded;
+    }
+
+    private long ttlNanos(FirebaseToken token) {
+        Object exp = token.getClaims().get("exp");
+        if (!(exp instanceof Number expSeconds)) {
+            return 0;
+        }
+        long untilExpiry = TimeUnit.MILLISECONDS.toNanos(
+                expSeconds.longValue() * 1000 - System.currentTimeMillis());
+        if (untilExpiry <= 0) {
+            return 0;
+        }
+        return checkRevoked ? Math.min(untilExpiry, revokedCheckWindowNanos) : untilExpiry;
+    }
+
+    private static String hash(String idToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(idToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
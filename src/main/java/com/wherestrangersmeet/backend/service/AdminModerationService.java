@@ -26,6 +26,7 @@ public class AdminModerationService {
     private final UserService userService;
     private final BannedEmailService bannedEmailService;
     private final FileStorageService fileStorageService;
+    private final UserCache userCache;
 
     public AdminModerationService(
             UserReportRepository userReportRepository,
@@ -33,13 +34,15 @@ public class AdminModerationService {
             UserRepository userRepository,
             UserService userService,
             BannedEmailService bannedEmailService,
-            FileStorageService fileStorageService) {
+            FileStorageService fileStorageService,
+            UserCache userCache) {
         this.userReportRepository = userReportRepository;
         this.messageRepository = messageRepository;
         this.userRepository = userRepository;
         this.userService = userService;
         this.bannedEmailService = bannedEmailService;
         this.fileStorageService = fileStorageService;
+        this.userCache = userCache;
     }
 
     @Transactional(readOnly = true)
@@ -122,6 +125,8 @@ public class AdminModerationService {
             user.setAvatarCropScale(null);
         }
         userRepository.save(user);
+        userCache.invalidateByUserId(user.getId());
+        userCache.invalidateByFirebaseUid(user.getFirebaseUid());
     }
 
     @Transactional
@@ -145,6 +150,8 @@ public class AdminModerationService {
         }
 
         userRepository.save(user);
+        userCache.invalidateByUserId(user.getId());
+        userCache.invalidateByFirebaseUid(user.getFirebaseUid());
     }
 
     private AdminReportView toView(UserReport report) {
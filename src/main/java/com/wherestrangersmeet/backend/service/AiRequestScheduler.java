@@ -0,0 +1,228 @@
+package com.wherestrangersmeet.backend.service;
+
+import com.wherestrangersmeet.backend.model.Message;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Admission control for @momo requests, so AI load queues up instead of tying up the
+ * shared @Async pool that also delivers chat messages.
+ *
+ * - Bulkhead: at most app.ai.scheduler.max-concurrent requests run, on dedicated threads.
+ * - Fairness: waiting requests sit in per-user queues served round-robin, and each user
+ *   may have at most app.ai.scheduler.max-queued-per-user waiting.
+ * - Single-flight: one request per conversation runs at a time. Triggers that arrive while
+ *   one is waiting are folded into it (the newest trigger wins; its transcript already
+ *   contains the earlier ones). A trigger during a running request waits for it to finish.
+ */
+@Service
+public class AiRequestScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(AiRequestScheduler.class);
+
+    public enum Status {
+        STARTED, QUEUED, COALESCED, REJECTED
+    }
+
+    /**
+     * Outcome of a submit. position is the 1-based place in line for QUEUED and COALESCED.
+     */
+    public record Admission(Status status, int position) {
+    }
+
+    private final int maxConcurrent;
+    private final int maxQueuedPerUser;
+    private final ExecutorService workers;
+
+    // All state below is guarded by this
+    private final Map<Long, ArrayDeque<Job>> queuesByUser = new HashMap<>();
+    private final ArrayDeque<Long> rotation = new ArrayDeque<>();
+    private final Map<String, Job> waitingByConversation = new HashMap<>();
+    private final Map<String, Job> followUps = new HashMap<>();
+    private final Set<String> runningConversations = new HashSet<>();
+    private final Map<Long, Integer> waitingByUser = new HashMap<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final Counter coalescedCounter;
+    private final Counter rejectedCounter;
+
+    public AiRequestScheduler(
+            MeterRegistry meterRegistry,
+            @Value("${app.ai.scheduler.max-concurrent:4}") int maxConcurrent,
+            @Value("${app.ai.scheduler.max-queued-per-user:3}") int maxQueuedPerUser) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueuedPerUser = maxQueuedPerUser;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "ai-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("ai.scheduler.running", running, AtomicInteger::get)
+                .description("AI requests currently calling OpenAI")
+                .register(meterRegistry);
+        Gauge.builder("ai.scheduler.waiting", waiting, AtomicInteger::get)
+                .description("AI requests waiting for a slot or for their conversation")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("ai.scheduler.coalesced")
+                .description("Triggers folded into a request already waiting for the same conversation")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("ai.scheduler.rejected")
+                .description("Triggers refused because the user already had too many waiting")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run task with the trigger (or a newer trigger folded in later) once a slot is free.
+     */
+    public synchronized Admission submit(Long userId, String conversationKey, Message trigger,
+            Consumer<Message> task) {
+        Job existing = waitingByConversation.get(conversationKey);
+        if (existing != null) {
+            existing.trigger = trigger;
+            coalescedCounter.increment();
+            return new Admission(Status.COALESCED, positionOf(existing));
+        }
+
+        if (waitingByUser.getOrDefault(userId, 0) >= maxQueuedPerUser) {
+            rejectedCounter.increment();
+            return new Admission(Status.REJECTED, 0);
+        }
+
+        Job job = new Job(userId, conversationKey, trigger, task);
+        waitingByConversation.put(conversationKey, job);
+        waitingByUser.merge(userId, 1, Integer::sum);
+        waiting.incrementAndGet();
+
+        if (runningConversations.contains(conversationKey)) {
+            followUps.put(conversationKey, job);
+            return new Admission(Status.QUEUED, 1);
+        }
+
+        enqueue(job);
+        dispatch();
+        return job.started
+                ? new Admission(Status.STARTED, 0)
+                : new Admission(Status.QUEUED, positionOf(job));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void enqueue(Job job) {
+        ArrayDeque<Job> queue = queuesByUser.get(job.userId);
+        if (queue == null) {
+            queue = new ArrayDeque<>();
+            queuesByUser.put(job.userId, queue);
+            rotation.addLast(job.userId);
+        }
+        queue.addLast(job);
+    }
+
+    private void dispatch() {
+        while (running.get() < maxConcurrent && !rotation.isEmpty()) {
+            Long userId = rotation.pollFirst();
+            ArrayDeque<Job> queue = queuesByUser.get(userId);
+            Job job = queue.pollFirst();
+            if (queue.isEmpty()) {
+                queuesByUser.remove(userId);
+            } else {
+                rotation.addLast(userId);
+            }
+            start(job);
+        }
+    }
+
+    private void start(Job job) {
+        waitingByConversation.remove(job.conversationKey);
+        waitingByUser.computeIfPresent(job.userId, (id, count) -> count > 1 ? count - 1 : null);
+        waiting.decrementAndGet();
+        runningConversations.add(job.conversationKey);
+        running.incrementAndGet();
+        job.started = true;
+        workers.execute(() -> run(job));
+    }
+
+    private void run(Job job) {
+        try {
+            job.task.accept(job.trigger);
+        } catch (Exception e) {
+            log.error("❌ AI request failed for conversation {}", job.conversationKey, e);
+        } finally {
+            complete(job);
+        }
+    }
+
+    private synchronized void complete(Job job) {
+        running.decrementAndGet();
+        runningConversations.remove(job.conversationKey);
+        Job followUp = followUps.remove(job.conversationKey);
+        if (followUp != null) {
+            enqueue(followUp);
+        }
+        dispatch();
+    }
+
+    // Replays the round-robin order over the current queues; queues are short and capped per user
+    private int positionOf(Job target) {
+        if (followUps.containsValue(target)) {
+            return 1;
+        }
+        List<Iterator<Job>> iterators = new ArrayList<>();
+        for (Long userId : rotation) {
+            iterators.add(queuesByUser.get(userId).iterator());
+        }
+        int position = 0;
+        boolean progressed = true;
+        while (progressed) {
+            progressed = false;
+            for (Iterator<Job> iterator : iterators) {
+                if (iterator.hasNext()) {
+                    progressed = true;
+                    position++;
+                    if (iterator.next() == target) {
+                        return position;
+                    }
+                }
+            }
+        }
+        return position;
+    }
+
+    private static final class Job {
+        final Long userId;
+        final String conversationKey;
+        final Consumer<Message> task;
+        volatile Message trigger;
+        boolean started;
+
+        Job(Long userId, String conversationKey, Message trigger, Consumer<Message> task) {
+            this.userId = userId;
+            this.conversationKey = conversationKey;
+            this.trigger = trigger;
+            this.task = task;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.wherestrangersmeet.backend.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wherestrangersmeet.backend.config.OpenAiHttpClients;
 import com.wherestrangersmeet.backend.model.Message;
 import com.wherestrangersmeet.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -9,12 +10,18 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -28,62 +35,27 @@ public class AiService {
     private final com.wherestrangersmeet.backend.repository.MessageRepository messageRepository; // Added for
                                                                                                  // context/vision
     private final FileStorageService fileStorageService;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final TokenCounter tokenCounter;
+    private final OpenAiHttpClients openAiHttpClients;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private static final String OPENAI_URL = "https://api.openai.com/v1/chat/completions";
     // Generous token budget to allow context reading, but cap to prevent abuse
     private static final int MAX_INPUT_TOKENS = 10000;
+    // Per-message cap, roughly the old 2000-character cut for English text
+    private static final int MAX_MESSAGE_TOKENS = 500;
 
     public enum AiMode {
         BRIEF
     }
 
-    public AiResponse generateResponse(List<Message> history, Message triggerMessage, AiMode mode) {
+    public AiResponse generateResponse(List<Message> history, Message triggerMessage, AiMode mode, String summary) {
         try {
-            // 1. Analyze for Vision (On-Demand)
-            String imageUrl = detectRelevantImage(triggerMessage);
-
-            // 2. Construct Transcript (with Reply Context & Privacy)
-            String transcript = constructTranscript(history, triggerMessage);
-            String systemPrompt = getSystemPrompt(mode);
-
-            // 3. Prepare Request Body
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", "gpt-4o-mini");
-
-            List<Map<String, Object>> messages = new ArrayList<>();
-            messages.add(Map.of("role", "system", "content", systemPrompt));
-
-            if (imageUrl != null) {
-                // MULTIMODAL REQUEST
-                List<Map<String, Object>> contentList = new ArrayList<>();
-                contentList.add(Map.of("type", "text", "text", transcript));
-                contentList.add(Map.of("type", "image_url", "image_url", Map.of("url", imageUrl, "detail", "low"))); // Low
-                                                                                                                     // detail
-                                                                                                                     // to
-                                                                                                                     // save
-                                                                                                                     // costs
-
-                messages.add(Map.of("role", "user", "content", contentList));
-                requestBody.put("max_tokens", 1500); // Slightly more for vision analysis
-            } else {
-                // TEXT ONLY REQUEST
-                messages.add(Map.of("role", "user", "content", transcript));
-                requestBody.put("max_tokens", 1000);
-            }
-
-            requestBody.put("messages", messages);
-
-            // Prepare Headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(openAiApiKey);
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+            Map<String, Object> requestBody = buildRequestBody(history, triggerMessage, mode, summary);
+            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, jsonHeaders());
 
             // Execute Call
-            ResponseEntity<String> response = restTemplate.postForEntity(OPENAI_URL, entity, String.class);
+            ResponseEntity<String> response = openAiHttpClients.chat().postForEntity(OPENAI_URL, entity, String.class);
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 return parseResponse(response.getBody());
@@ -94,101 +66,346 @@ public class AiService {
         }
 
         // Fallback
-        return new AiResponse("AI_SERIOUS",
-                "I'm having trouble connecting to my brain right now. Please try again later.");
+        return fallbackResponse();
     }
 
-    private String constructTranscript(List<Message> history, Message triggerMessage) {
-        StringBuilder sb = new StringBuilder();
-        int estimatedTokens = 0;
+    /**
+     * Same request as generateResponse but with stream=true: content deltas are handed to
+     * onDelta as the SSE events arrive, and the complete reply is returned at the end.
+     * A stream that fails midway (error, stalled body, connection closed before [DONE]) is
+     * not passed off as a complete reply: onAbort is called if deltas were already handed
+     * out, and the fallback reply is returned.
+     */
+    public AiResponse streamResponse(List<Message> history, Message triggerMessage, AiMode mode, String summary,
+            Consumer<String> onDelta, Runnable onAbort) {
+        StringBuilder content = new StringBuilder();
+        try {
+            Map<String, Object> requestBody = buildRequestBody(history, triggerMessage, mode, summary);
+            requestBody.put("stream", true);
+
+            openAiHttpClients.chat().execute(OPENAI_URL, HttpMethod.POST,
+                    request -> {
+                        request.getHeaders().addAll(jsonHeaders());
+                        objectMapper.writeValue(request.getBody(), requestBody);
+                    },
+                    response -> {
+                        if (!response.getStatusCode().is2xxSuccessful()) {
+                            throw new IOException("OpenAI stream failed with status " + response.getStatusCode());
+                        }
+                        readEventStream(response.getBody(), delta -> {
+                            content.append(delta);
+                            onDelta.accept(delta);
+                        });
+                        return null;
+                    });
+        } catch (Exception e) {
+            log.error("Error streaming from OpenAI after {} chars: ", content.length(), e);
+            if (!content.isEmpty()) {
+                onAbort.run();
+            }
+            return fallbackResponse();
+        }
+
+        if (content.isEmpty()) {
+            return fallbackResponse();
+        }
+        return new AiResponse("AI_SERIOUS", cleanContent(content.toString()));
+    }
+
+    // Server-sent events: "data: {json}" lines, terminated by "data: [DONE]"
+    private void readEventStream(InputStream body, Consumer<String> onDelta) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+            String data = line.substring(5).trim();
+            if ("[DONE]".equals(data)) {
+                return;
+            }
+            JsonNode delta = objectMapper.readTree(data).path("choices").path(0).path("delta").path("content");
+            if (delta.isTextual() && !delta.asText().isEmpty()) {
+                onDelta.accept(delta.asText());
+            }
+        }
+        throw new IOException("OpenAI stream ended before [DONE]");
+    }
+
+    private Map<String, Object> buildRequestBody(List<Message> history, Message triggerMessage, AiMode mode,
+            String summary) {
+        // 0. Batch-load what the transcript references: reply parents outside the history, and names
+        Map<Long, Message> replyParents = loadReplyParents(history, triggerMessage);
+        Map<Long, String> userNames = loadUserNames(history, triggerMessage);
+
+        // 1. Analyze for Vision (On-Demand)
+        String imageUrl = detectRelevantImage(triggerMessage, replyParents);
+
+        // 2. Construct Transcript (with Reply Context & Privacy), after the rolling summary if there is one
+        String transcript = constructTranscript(history, triggerMessage, replyParents, userNames);
+        if (summary != null && !summary.isBlank()) {
+            transcript = "[CONVERSATION SUMMARY (earlier messages)]\n" + summary + "\n[END SUMMARY]\n\n" + transcript;
+        }
+        String systemPrompt = getSystemPrompt(mode);
+
+        // 3. Prepare Request Body
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", "gpt-4o-mini");
+
+        List<Map<String, Object>> messages = new ArrayList<>();
+        messages.add(Map.of("role", "system", "content", systemPrompt));
 
-        // Process from Oldest to Newest
-        List<Message> recentMessages = new ArrayList<>(history);
-        Collections.reverse(recentMessages); // CRITICAL: Ensure chronological order (Oldest -> Newest)
+        if (imageUrl != null) {
+            // MULTIMODAL REQUEST
+            List<Map<String, Object>> contentList = new ArrayList<>();
+            contentList.add(Map.of("type", "text", "text", transcript));
+            contentList.add(Map.of("type", "image_url", "image_url", Map.of("url", imageUrl, "detail", "low"))); // Low detail to save costs
 
-        // Pre-fetch user names to optimize
-        Map<Long, String> userNames = new HashMap<>();
+            messages.add(Map.of("role", "user", "content", contentList));
+            requestBody.put("max_tokens", 1500); // Slightly more for vision analysis
+        } else {
+            // TEXT ONLY REQUEST
+            messages.add(Map.of("role", "user", "content", transcript));
+            requestBody.put("max_tokens", 1000);
+        }
+
+        requestBody.put("messages", messages);
+        return requestBody;
+    }
 
-        for (Message msg : recentMessages) {
+    /**
+     * Fold messages (oldest first) into the running summary of a conversation. Deleted
+     * messages are left out. Messages are taken in order until the next one would overrun
+     * MAX_INPUT_TOKENS; the result says which message the summary now reaches, so the rest
+     * stay unsummarized for the next round. Returns null if the call fails, leaving the old
+     * summary in place.
+     */
+    public SummaryUpdate summarizeConversation(String previousSummary, List<Message> messages) {
+        StringBuilder sb = new StringBuilder();
+        Map<Long, String> userNames = loadUserNames(messages, null);
+        int budget = MAX_INPUT_TOKENS - tokenCounter.count(previousSummary);
+        Long coveredUntil = null;
+        for (Message msg : messages) {
             // CRITICAL: Privacy - Skip Deleted Messages
-            if (Boolean.TRUE.equals(msg.getIsDeleted()))
-                continue;
+            if (!Boolean.TRUE.equals(msg.getIsDeleted())) {
+                StringBuilder line = new StringBuilder();
+                appendMessageToTranscript(line, msg, userNames, false);
+                int tokens = tokenCounter.count(line.toString());
+                if (tokens > budget)
+                    break;
+                budget -= tokens;
+                sb.append(line);
+            }
+            coveredUntil = msg.getId();
+        }
+        if (coveredUntil == null) {
+            return null;
+        }
+
+        String systemPrompt = """
+                You maintain a running summary of a private chat between two people (and MOMO AI, an assistant they can summon).
+                Update the current summary with the new messages.
+                Keep: who is who by name, facts they shared about themselves, plans, open questions, and the overall tone.
+                Drop small talk that no longer matters. Write in the language the users use.
+                Reply with the updated summary only, at most 200 words.
+                """;
+        String userContent = "CURRENT SUMMARY:\n" + (previousSummary == null ? "(none yet)" : previousSummary)
+                + "\n\nNEW MESSAGES:\n" + sb;
 
-            // Estimate tokens
-            int msgTokens = (msg.getText() != null ? msg.getText().length() : 0) / 4;
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", "gpt-4o-mini");
+        requestBody.put("max_tokens", 400);
+        requestBody.put("messages", List.of(
+                Map.of("role", "system", "content", systemPrompt),
+                Map.of("role", "user", "content", userContent)));
 
-            // Hard cap huge single messages
-            String content = msg.getText();
-            if (content != null && content.length() > 2000) {
-                content = content.substring(0, 2000) + "...(truncated)";
+        try {
+            ResponseEntity<String> response = openAiHttpClients.chat().postForEntity(OPENAI_URL,
+                    new HttpEntity<>(requestBody, jsonHeaders()), String.class);
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                JsonNode root = objectMapper.readTree(response.getBody());
+                String summary = root.path("choices").path(0).path("message").path("content").asText().trim();
+                return new SummaryUpdate(summary, coveredUntil);
             }
+        } catch (Exception e) {
+            log.error("Error summarizing conversation: ", e);
+        }
+        return null;
+    }
 
-            // Handle Reply Context Injection
-            String replyContext = "";
-            if (msg.getReplyToId() != null) {
-                // 1. Try to find in valid history first
-                Optional<Message> parentInHistory = recentMessages.stream()
-                        .filter(m -> m.getId().equals(msg.getReplyToId()) && !Boolean.TRUE.equals(m.getIsDeleted()))
-                        .findFirst();
-
-                String parentText = null;
-
-                if (parentInHistory.isPresent()) {
-                    parentText = parentInHistory.get().getText();
-                } else {
-                    // 2. Not in recent history? Fetch from DB with NEIGHBORHOOD!
-                    Optional<Message> parentDb = messageRepository.findById(msg.getReplyToId());
-
-                    if (parentDb.isPresent() && !Boolean.TRUE.equals(parentDb.get().getIsDeleted())) {
-                        Message parent = parentDb.get();
-                        parentText = parent.getText();
-                        if ("IMAGE".equalsIgnoreCase(parent.getMessageType())) {
-                            parentText = "[Sent an Image]";
-                        }
+    private HttpHeaders jsonHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(openAiApiKey);
+        return headers;
+    }
 
-                        // CRITICAL: Fetch Neighborhood (Historical Context)
-                        // Only do this if we are processing the TRIGGER message (to avoid explosion of
-                        // context for every old reply)
-                        if (triggerMessage != null && msg.getId().equals(triggerMessage.getId())) {
-                            fetchAndInjectHistoricalContext(sb, parent, userNames);
-                        }
-                    }
-                }
+    private AiResponse fallbackResponse() {
+        return new AiResponse("AI_SERIOUS",
+                "I'm having trouble connecting to my brain right now. Please try again later.");
+    }
 
-                if (parentText != null) {
-                    if (parentText.length() > 50)
-                        parentText = parentText.substring(0, 50) + "...";
-                    replyContext = " (Replying to: \"" + parentText + "\")";
-                }
+    /**
+     * Reply parents that are not in the history (plus the trigger's own parent), fetched in one query.
+     */
+    private Map<Long, Message> loadReplyParents(List<Message> history, Message triggerMessage) {
+        Set<Long> inHistory = new HashSet<>();
+        for (Message msg : history) {
+            inHistory.add(msg.getId());
+        }
+        Set<Long> parentIds = new HashSet<>();
+        for (Message msg : history) {
+            if (msg.getReplyToId() != null && !inHistory.contains(msg.getReplyToId())) {
+                parentIds.add(msg.getReplyToId());
             }
+        }
+        if (triggerMessage.getReplyToId() != null) {
+            parentIds.add(triggerMessage.getReplyToId());
+        }
 
-            // Lazy load name
-            String name;
-            if (msg.getMessageType() != null && msg.getMessageType().startsWith("AI_")) {
-                name = "MOMO AI";
-            } else {
-                name = userNames.computeIfAbsent(msg.getSenderId(),
-                        id -> userRepository.findById(id).map(u -> u.getName()).orElse("User " + id));
+        Map<Long, Message> parents = new HashMap<>();
+        if (!parentIds.isEmpty()) {
+            for (Message parent : messageRepository.findAllById(parentIds)) {
+                parents.put(parent.getId(), parent);
             }
+        }
+        return parents;
+    }
 
-            // MARK THE TRIGGER
-            boolean isTrigger = msg.getId().equals(triggerMessage.getId());
-            String marker = isTrigger ? " [REQ]" : "";
+    /**
+     * Names of everyone who can appear in the transcript. A conversation has two participants,
+     * so this is one small IN query instead of a user load per sender.
+     */
+    private Map<Long, String> loadUserNames(List<Message> messages, Message triggerMessage) {
+        Set<Long> userIds = new HashSet<>();
+        if (triggerMessage != null) {
+            userIds.add(triggerMessage.getSenderId());
+            userIds.add(triggerMessage.getReceiverId());
+        }
+        for (Message msg : messages) {
+            userIds.add(msg.getSenderId());
+        }
 
-            sb.append("[").append(name).append(replyContext).append("]").append(marker).append(": ").append(content)
-                    .append("\n");
+        Map<Long, String> names = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            for (Object[] row : userRepository.findNamesByIds(userIds)) {
+                names.put((Long) row[0], (String) row[1]);
+            }
+        }
+        return names;
+    }
 
-            estimatedTokens += msgTokens;
-            if (estimatedTokens > MAX_INPUT_TOKENS)
+    /**
+     * The transcript for a reply, oldest to newest. Messages are packed newest first until the
+     * next one would overrun MAX_INPUT_TOKENS, so a long backlog loses its oldest messages. The
+     * trigger is counted first and always kept, together with any neighborhood injected for it.
+     */
+    private String constructTranscript(List<Message> history, Message triggerMessage,
+            Map<Long, Message> replyParents, Map<Long, String> userNames) {
+        String triggerLine = null;
+        int budget = MAX_INPUT_TOKENS;
+        for (Message msg : history) {
+            if (!Boolean.TRUE.equals(msg.getIsDeleted()) && msg.getId().equals(triggerMessage.getId())) {
+                triggerLine = renderTranscriptLine(msg, triggerMessage, history, replyParents, userNames);
+                budget -= tokenCounter.count(triggerLine);
                 break;
+            }
         }
 
+        // History is newest first
+        List<String> lines = new ArrayList<>();
+        boolean full = false;
+        for (Message msg : history) {
+            // CRITICAL: Privacy - Skip Deleted Messages
+            if (Boolean.TRUE.equals(msg.getIsDeleted()))
+                continue;
+            if (msg.getId().equals(triggerMessage.getId())) {
+                lines.add(triggerLine);
+                triggerLine = null;
+                continue;
+            }
+            if (!full) {
+                String line = renderTranscriptLine(msg, triggerMessage, history, replyParents, userNames);
+                int tokens = tokenCounter.count(line);
+                if (tokens <= budget) {
+                    budget -= tokens;
+                    lines.add(line);
+                    continue;
+                }
+                full = true;
+            }
+            // Out of budget: only keep walking to reach the trigger
+            if (triggerLine == null)
+                break;
+        }
+        Collections.reverse(lines); // CRITICAL: Ensure chronological order (Oldest -> Newest)
+
+        StringBuilder sb = new StringBuilder();
+        lines.forEach(sb::append);
+
         // Add the trigger instructions
         sb.append(
                 "\n(SYSTEM: The message marked [REQ] is the one that summoned you. Respond primarily to that user's request, using the other messages as context. If messages appear AFTER [REQ], they are new context/interruption.)");
         return sb.toString();
     }
 
+    // One message as a transcript line, preceded by the injected neighborhood if it is the trigger
+    private String renderTranscriptLine(Message msg, Message triggerMessage, List<Message> history,
+            Map<Long, Message> replyParents, Map<Long, String> userNames) {
+        StringBuilder sb = new StringBuilder();
+
+        String content = capMessage(msg.getText());
+
+        // Handle Reply Context Injection
+        String replyContext = "";
+        if (msg.getReplyToId() != null) {
+            // 1. Try to find in valid history first
+            Optional<Message> parentInHistory = history.stream()
+                    .filter(m -> m.getId().equals(msg.getReplyToId()) && !Boolean.TRUE.equals(m.getIsDeleted()))
+                    .findFirst();
+
+            String parentText = null;
+
+            if (parentInHistory.isPresent()) {
+                parentText = parentInHistory.get().getText();
+            } else {
+                // 2. Not in recent history? Use the batch-loaded parent, with NEIGHBORHOOD!
+                Optional<Message> parentDb = Optional.ofNullable(replyParents.get(msg.getReplyToId()));
+
+                if (parentDb.isPresent() && !Boolean.TRUE.equals(parentDb.get().getIsDeleted())) {
+                    Message parent = parentDb.get();
+                    parentText = parent.getText();
+                    if ("IMAGE".equalsIgnoreCase(parent.getMessageType())) {
+                        parentText = "[Sent an Image]";
+                    }
+
+                    // CRITICAL: Fetch Neighborhood (Historical Context)
+                    // Only do this if we are processing the TRIGGER message (to avoid explosion of
+                    // context for every old reply)
+                    if (msg.getId().equals(triggerMessage.getId())) {
+                        fetchAndInjectHistoricalContext(sb, parent, userNames);
+                    }
+                }
+            }
+
+            if (parentText != null) {
+                if (parentText.length() > 50)
+                    parentText = parentText.substring(0, 50) + "...";
+                replyContext = " (Replying to: \"" + parentText + "\")";
+            }
+        }
+
+        String name = displayName(msg, userNames);
+
+        // MARK THE TRIGGER
+        boolean isTrigger = msg.getId().equals(triggerMessage.getId());
+        String marker = isTrigger ? " [REQ]" : "";
+
+        sb.append("[").append(name).append(replyContext).append("]").append(marker).append(": ").append(content)
+                .append("\n");
+        return sb.toString();
+    }
+
     private String getSystemPrompt(AiMode mode) {
         String baseInstructions = """
                 You are a wise, knowledgeable, and empathetic third participant in a chat group.
@@ -230,10 +447,7 @@ public class AiService {
             JsonNode root = objectMapper.readTree(jsonBody);
             String content = root.path("choices").path(0).path("message").path("content").asText();
 
-            // Clean up any potential hallucinations of tags (just in case)
-            content = content.replace("[SERIOUS]", "").replace("[JOKER]", "").trim();
-
-            return new AiResponse("AI_SERIOUS", content); // Always return standard AI type
+            return new AiResponse("AI_SERIOUS", cleanContent(content)); // Always return standard AI type
 
         } catch (Exception e) {
             log.error("Error parsing AI response: ", e);
@@ -242,7 +456,7 @@ public class AiService {
     }
 
     // Detects if we should use Vision capabilities
-    private String detectRelevantImage(Message trigger) {
+    private String detectRelevantImage(Message trigger, Map<Long, Message> replyParents) {
         // Case A: User attached image directly to @momo command
         if ("IMAGE".equalsIgnoreCase(trigger.getMessageType()) &&
                 trigger.getAttachmentUrl() != null &&
@@ -252,7 +466,7 @@ public class AiService {
 
         // Case B: User Replied to an image
         if (trigger.getReplyToId() != null) {
-            Optional<Message> parentOpt = messageRepository.findById(trigger.getReplyToId());
+            Optional<Message> parentOpt = Optional.ofNullable(replyParents.get(trigger.getReplyToId()));
             if (parentOpt.isPresent()) {
                 Message parent = parentOpt.get();
                 // CRITICAL: Respect Privacy - If parent is deleted, we CANNOT see it
@@ -270,15 +484,18 @@ public class AiService {
     // Fetches 5 messages before and 5 after the target, injecting them as context
     private void fetchAndInjectHistoricalContext(StringBuilder sb, Message targetMsg, Map<Long, String> userNames) {
         try {
-            // 1. Fetch Neighborhood
-            org.springframework.data.domain.Pageable limit5 = org.springframework.data.domain.PageRequest.of(0, 5);
-            List<Message> before = messageRepository.findTop5Before(targetMsg.getSenderId(), targetMsg.getReceiverId(),
-                    targetMsg.getId(), limit5);
-            List<Message> after = messageRepository.findTop5After(targetMsg.getSenderId(), targetMsg.getReceiverId(),
-                    targetMsg.getId(), limit5);
+            // 1. Fetch Neighborhood (both sides in one window query)
+            List<Message> neighborhood = messageRepository.findNeighborhood(targetMsg.getSenderId(),
+                    targetMsg.getReceiverId(), targetMsg.getId(), 5);
 
             // 2. Sort Correctly (Oldest -> Newest)
-            Collections.reverse(before); // DESC -> ASC
+            List<Message> before = new ArrayList<>();
+            List<Message> after = new ArrayList<>();
+            for (Message m : neighborhood) {
+                (m.getId() < targetMsg.getId() ? before : after).add(m);
+            }
+            before.sort(Comparator.comparing(Message::getId));
+            after.sort(Comparator.comparing(Message::getId));
 
             // 3. Construct Block
             sb.append("\n[HISTORICAL CONTEXT / FOCUS POINT]\n");
@@ -306,14 +523,8 @@ public class AiService {
 
     private void appendMessageToTranscript(StringBuilder sb, Message msg, Map<Long, String> userNames,
             boolean isFocus) {
-        String name;
-        if (msg.getMessageType() != null && msg.getMessageType().startsWith("AI_")) {
-            name = "MOMO AI";
-        } else {
-            name = userNames.computeIfAbsent(msg.getSenderId(),
-                    id -> userRepository.findById(id).map(u -> u.getName()).orElse("User " + id));
-        }
-        String content = msg.getText();
+        String name = displayName(msg, userNames);
+        String content = capMessage(msg.getText());
         if ("IMAGE".equalsIgnoreCase(msg.getMessageType()))
             content = "[Image]";
 
@@ -321,6 +532,32 @@ public class AiService {
                 .append("\n");
     }
 
+    // Hard cap huge single messages
+    private String capMessage(String content) {
+        String capped = tokenCounter.truncate(content, MAX_MESSAGE_TOKENS);
+        if (content != null && capped.length() < content.length()) {
+            return capped + "...(truncated)";
+        }
+        return content;
+    }
+
+    private String displayName(Message msg, Map<Long, String> userNames) {
+        if (msg.getMessageType() != null && msg.getMessageType().startsWith("AI_")) {
+            return "MOMO AI";
+        }
+        String name = userNames.get(msg.getSenderId());
+        return name != null ? name : "User " + msg.getSenderId();
+    }
+
+    // Clean up any potential hallucinations of tags (just in case)
+    private String cleanContent(String content) {
+        return content.replace("[SERIOUS]", "").replace("[JOKER]", "").trim();
+    }
+
     public record AiResponse(String type, String text) {
     }
+
+    /** An updated conversation summary, covering every message up to coveredUntilMessageId. */
+    public record SummaryUpdate(String text, long coveredUntilMessageId) {
+    }
 }
@@ -3,9 +3,13 @@ package com.wherestrangersmeet.backend.service;
 import com.wherestrangersmeet.backend.model.AppUpdateConfig;
 import com.wherestrangersmeet.backend.repository.AppUpdateConfigRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -17,9 +21,30 @@ public class AppUpdateService {
 
     private final AppUpdateConfigRepository appUpdateConfigRepository;
 
-    @Transactional(readOnly = true)
+    // Per-platform configs served to every app launch; swapped wholesale on reload
+    private volatile Map<AppUpdateConfig.Platform, AppUpdateConfig> configsByPlatform = Map.of();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.update.config-resync-ms:60000}",
+            initialDelayString = "${app.update.config-resync-ms:60000}")
+    public void reloadConfigs() {
+        Map<AppUpdateConfig.Platform, AppUpdateConfig> loaded = new EnumMap<>(AppUpdateConfig.Platform.class);
+        for (AppUpdateConfig config : appUpdateConfigRepository.findAll()) {
+            loaded.put(config.getPlatform(), config);
+        }
+        configsByPlatform = loaded;
+    }
+
+    /**
+     * Served from memory. Configs are reloaded on upsert and resynced periodically so
+     * edits made on another node show up within the resync interval.
+     */
     public Map<String, Object> getUpdateStatus(String platformValue, String currentVersion) {
-        AppUpdateConfig config = getConfig(platformValue);
+        AppUpdateConfig.Platform platform = parsePlatform(platformValue);
+        AppUpdateConfig config = configsByPlatform.get(platform);
+        if (config == null) {
+            throw new NoSuchElementException("App update config not found for platform " + platform);
+        }
         boolean versionIsOlder = isVersionOlder(currentVersion, config.getLatestVersion());
         boolean updateAvailable = Boolean.TRUE.equals(config.getUpdateAvailable()) && versionIsOlder;
         Map<String, Object> payload = new java.util.LinkedHashMap<>();
@@ -63,7 +88,9 @@ public class AppUpdateService {
         config.setForceUpdate(Boolean.TRUE.equals(forceUpdate));
         config.setStoreUrl(normalizeStoreUrl(storeUrl));
 
-        return toAdminPayload(appUpdateConfigRepository.save(config));
+        AppUpdateConfig saved = appUpdateConfigRepository.save(config);
+        reloadConfigs();
+        return toAdminPayload(saved);
     }
 
     @Transactional(readOnly = true)
@@ -1,15 +1,23 @@
 package com.wherestrangersmeet.backend.service;
 
+import com.wherestrangersmeet.backend.model.AiChunk;
+import com.wherestrangersmeet.backend.model.AiQueueStatus;
 import com.wherestrangersmeet.backend.model.Message;
-import com.wherestrangersmeet.backend.model.User;
-import com.wherestrangersmeet.backend.repository.UserRepository;
+import com.wherestrangersmeet.backend.model.UserSnapshot;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
 @Service
 @RequiredArgsConstructor
 public class AsyncMessageProcessor {
@@ -17,10 +25,19 @@ public class AsyncMessageProcessor {
     private static final Logger log = LoggerFactory.getLogger(AsyncMessageProcessor.class);
     private final SimpMessagingTemplate simpMessagingTemplate;
     private final NotificationService notificationService;
-    private final UserRepository userRepository;
+    private final UserCache userCache;
     private final com.wherestrangersmeet.backend.repository.MessageRepository messageRepository;
     private final AiService aiService;
     private final FileStorageService fileStorageService;
+    private final AiRequestScheduler aiRequestScheduler;
+    private final ConversationSummaryService conversationSummaryService;
+
+    // Off until clients render AI_CHUNK frames; they then see the reply as it is generated
+    @Value("${app.ai.stream.enabled:false}")
+    private boolean streamingEnabled;
+
+    @Value("${app.ai.stream.flush-interval-ms:100}")
+    private long streamFlushIntervalMs;
 
     @Async
     public void processInBackground(Message message, boolean broadcast) {
@@ -33,18 +50,18 @@ public class AsyncMessageProcessor {
         }
 
         // 2. WebSocket Broadcast (Fastest)
-        userRepository.findById(message.getReceiverId()).ifPresent(receiver -> {
-            if (broadcast && receiver.getFirebaseUid() != null) {
+        userCache.getSnapshot(message.getReceiverId()).ifPresent(receiver -> {
+            if (broadcast && receiver.firebaseUid() != null) {
                 simpMessagingTemplate.convertAndSendToUser(
-                        receiver.getFirebaseUid(),
+                        receiver.firebaseUid(),
                         "/queue/messages",
                         message);
             }
 
             // 3. Firebase Push Notification (Async, persistent)
-            if (receiver.getFcmToken() != null && !receiver.getFcmToken().isEmpty()) {
-                userRepository.findById(message.getSenderId()).ifPresent(sender -> {
-                    String title = sender.getName();
+            if (receiver.hasFcmToken()) {
+                userCache.getSnapshot(message.getSenderId()).ifPresent(sender -> {
+                    String title = sender.name();
                     String body = "TEXT".equals(message.getMessageType()) ? message.getText()
                             : "Sent a " + message.getMessageType().toLowerCase();
 
@@ -57,15 +74,10 @@ public class AsyncMessageProcessor {
                     java.util.Map<String, String> data = new java.util.HashMap<>();
                     data.put("type", "CHAT");
                     data.put("senderId", String.valueOf(message.getSenderId()));
-                    data.put("senderName", sender.getName());
+                    data.put("senderName", sender.name());
 
                     // Add avatar URL with presigned URL generation
-                    String avatarUrl = null;
-                    if (sender.getPhotos() != null && !sender.getPhotos().isEmpty()) {
-                        avatarUrl = sender.getPhotos().get(0).getUrl();
-                    } else if (sender.getAvatarUrl() != null) {
-                        avatarUrl = sender.getAvatarUrl();
-                    }
+                    String avatarUrl = sender.avatarKey();
                     if (avatarUrl != null) {
                         // Generate presigned URL if it's a relative path
                         if (!avatarUrl.startsWith("http")) {
@@ -74,7 +86,7 @@ public class AsyncMessageProcessor {
                         data.put("senderAvatar", avatarUrl);
                     }
 
-                    notificationService.sendNotification(receiver.getFcmToken(), title, body, data);
+                    notificationService.sendNotification(receiver.fcmToken(), title, body, data);
                 });
             }
         });
@@ -97,31 +109,31 @@ public class AsyncMessageProcessor {
                 // Prevent infinite loops if AI somehow says @ai (unlikely but safe)
                 // Use brief mode
                 AiService.AiMode mode = AiService.AiMode.BRIEF;
-                handleAiTrigger(message, mode);
+                scheduleAiTrigger(message, mode);
             }
         }
     }
 
     private boolean hasAiConsent(Long userId) {
-        return userRepository.findById(userId)
+        return userCache.getSnapshot(userId)
                 .map(this::hasCurrentAiConsent)
                 .orElse(false);
     }
 
-    private boolean hasCurrentAiConsent(User user) {
-        return Boolean.TRUE.equals(user.getAiConsentAccepted())
-                && UserService.CURRENT_AI_CONSENT_VERSION.equals(user.getAiConsentVersion());
+    private boolean hasCurrentAiConsent(UserSnapshot user) {
+        return Boolean.TRUE.equals(user.aiConsentAccepted())
+                && UserService.CURRENT_AI_CONSENT_VERSION.equals(user.aiConsentVersion());
     }
 
     private boolean hasMomoConsent(Long userId) {
-        return userRepository.findById(userId)
+        return userCache.getSnapshot(userId)
                 .map(this::hasCurrentMomoConsent)
                 .orElse(false);
     }
 
-    private boolean hasCurrentMomoConsent(User user) {
-        return Boolean.TRUE.equals(user.getMomoConsentAccepted())
-                && UserService.CURRENT_MOMO_CONSENT_VERSION.equals(user.getMomoConsentVersion());
+    private boolean hasCurrentMomoConsent(UserSnapshot user) {
+        return Boolean.TRUE.equals(user.momoConsentAccepted())
+                && UserService.CURRENT_MOMO_CONSENT_VERSION.equals(user.momoConsentVersion());
     }
 
     private void notifyAiConsentRequired(Message originalMessage) {
@@ -133,10 +145,10 @@ public class AsyncMessageProcessor {
                 .createdAt(java.time.LocalDateTime.now(java.time.ZoneId.of("Asia/Singapore")))
                 .build();
 
-        userRepository.findById(originalMessage.getSenderId()).ifPresent(sender -> {
-            if (sender.getFirebaseUid() != null) {
+        userCache.getSnapshot(originalMessage.getSenderId()).ifPresent(sender -> {
+            if (sender.firebaseUid() != null) {
                 simpMessagingTemplate.convertAndSendToUser(
-                        sender.getFirebaseUid(),
+                        sender.firebaseUid(),
                         "/queue/messages",
                         consentMessage);
             }
@@ -152,16 +164,44 @@ public class AsyncMessageProcessor {
                 .createdAt(java.time.LocalDateTime.now(java.time.ZoneId.of("Asia/Singapore")))
                 .build();
 
-        userRepository.findById(originalMessage.getSenderId()).ifPresent(sender -> {
-            if (sender.getFirebaseUid() != null) {
+        userCache.getSnapshot(originalMessage.getSenderId()).ifPresent(sender -> {
+            if (sender.firebaseUid() != null) {
                 simpMessagingTemplate.convertAndSendToUser(
-                        sender.getFirebaseUid(),
+                        sender.firebaseUid(),
                         "/queue/messages",
                         consentMessage);
             }
         });
     }
 
+    /**
+     * Hand the trigger to the AI scheduler instead of calling OpenAI on this @Async thread,
+     * and tell the requester when it has to wait or was turned away.
+     */
+    private void scheduleAiTrigger(Message originalMessage, AiService.AiMode mode) {
+        long a = Math.min(originalMessage.getSenderId(), originalMessage.getReceiverId());
+        long b = Math.max(originalMessage.getSenderId(), originalMessage.getReceiverId());
+        AiRequestScheduler.Admission admission = aiRequestScheduler.submit(
+                originalMessage.getSenderId(),
+                a + ":" + b,
+                originalMessage,
+                trigger -> handleAiTrigger(trigger, mode));
+
+        LocalDateTime now = LocalDateTime.now(java.time.ZoneId.of("Asia/Singapore"));
+        AiQueueStatus status = switch (admission.status()) {
+            case QUEUED -> AiQueueStatus.queued(originalMessage, admission.position(), now);
+            case REJECTED -> AiQueueStatus.busy(originalMessage, now);
+            default -> null;
+        };
+        if (status != null) {
+            userCache.getSnapshot(originalMessage.getSenderId()).ifPresent(sender -> {
+                if (sender.firebaseUid() != null) {
+                    simpMessagingTemplate.convertAndSendToUser(sender.firebaseUid(), "/queue/messages", status);
+                }
+            });
+        }
+    }
+
     private void handleAiTrigger(Message originalMessage, AiService.AiMode mode) {
         try {
             // 0. Notify "Thinking" state (WebSocket ONLY, do not save to DB)
@@ -175,30 +215,32 @@ public class AsyncMessageProcessor {
                     .build();
 
             // Broadcast to Receiver
-            userRepository.findById(originalMessage.getReceiverId()).ifPresent(receiver -> {
-                if (receiver.getFirebaseUid() != null) {
-                    simpMessagingTemplate.convertAndSendToUser(receiver.getFirebaseUid(), "/queue/messages",
+            userCache.getSnapshot(originalMessage.getReceiverId()).ifPresent(receiver -> {
+                if (receiver.firebaseUid() != null) {
+                    simpMessagingTemplate.convertAndSendToUser(receiver.firebaseUid(), "/queue/messages",
                             thinkingMsg);
                 }
             });
             // Broadcast to Sender
-            userRepository.findById(originalMessage.getSenderId()).ifPresent(sender -> {
-                if (sender.getFirebaseUid() != null) {
-                    simpMessagingTemplate.convertAndSendToUser(sender.getFirebaseUid(), "/queue/messages", thinkingMsg);
+            userCache.getSnapshot(originalMessage.getSenderId()).ifPresent(sender -> {
+                if (sender.firebaseUid() != null) {
+                    simpMessagingTemplate.convertAndSendToUser(sender.firebaseUid(), "/queue/messages", thinkingMsg);
                 }
             });
 
-            // Fetch Conversation History
-            // We need the last ~30 messages to give context
-            org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(0, 30);
-            java.util.List<Message> history = messageRepository.findConversation(
+            // Fetch Conversation Context: rolling summary + the (at most ~30) messages it does not cover yet
+            ConversationSummaryService.ConversationContext context = conversationSummaryService.loadContext(
                     originalMessage.getSenderId(),
-                    originalMessage.getReceiverId(),
-                    pageable);
+                    originalMessage.getReceiverId());
+            java.util.List<Message> history = context.recentMessages();
 
             // Generate AI Response
-            // 5. Call AI Service
-            AiService.AiResponse aiResponse = aiService.generateResponse(history, originalMessage, mode);
+            // 5. Call AI Service (streamed to both participants when enabled)
+            ChunkRelay relay = streamingEnabled ? new ChunkRelay(originalMessage) : null;
+            AiService.AiResponse aiResponse = relay != null
+                    ? aiService.streamResponse(history, originalMessage, mode, context.summary(), relay::accept,
+                            relay::abort)
+                    : aiService.generateResponse(history, originalMessage, mode, context.summary());
 
             // Create and Save AI Message
             // We "ghost" the sender for now so it appears in the conversation query
@@ -213,6 +255,9 @@ public class AsyncMessageProcessor {
                     .build();
 
             Message savedAiMessage = messageRepository.save(aiMessage);
+            if (relay != null) {
+                relay.finish(savedAiMessage.getId());
+            }
 
             // Recursively process this new message to Broadcast & Notify (to Receiver)
             processInBackground(savedAiMessage, true);
@@ -220,17 +265,79 @@ public class AsyncMessageProcessor {
             // CRITICAL: Also broadcast to the SENDER (the triggers) via WebSocket
             // Because they didn't "send" this text locally, they need to receive it from
             // server
-            userRepository.findById(originalMessage.getSenderId()).ifPresent(sender -> {
-                if (sender.getFirebaseUid() != null) {
+            userCache.getSnapshot(originalMessage.getSenderId()).ifPresent(sender -> {
+                if (sender.firebaseUid() != null) {
                     simpMessagingTemplate.convertAndSendToUser(
-                            sender.getFirebaseUid(),
+                            sender.firebaseUid(),
                             "/queue/messages",
                             savedAiMessage);
                 }
             });
 
+            // Fold older messages into the summary once enough have piled up (after the reply is out)
+            conversationSummaryService.refreshIfDue(originalMessage.getSenderId(), originalMessage.getReceiverId());
+
         } catch (Exception e) {
             log.error("Error processing AI trigger", e);
         }
     }
+
+    /**
+     * Relays streamed deltas as AI_CHUNK frames to both participants, coalescing tokens that
+     * arrive within the flush interval so a reply is tens of frames rather than hundreds.
+     * Used from the single thread that consumes the stream.
+     */
+    private final class ChunkRelay {
+        private final String streamId = UUID.randomUUID().toString();
+        private final Message trigger;
+        private final List<String> recipientUids = new ArrayList<>();
+        private final LocalDateTime createdAt = LocalDateTime.now(java.time.ZoneId.of("Asia/Singapore"));
+        private final StringBuilder pending = new StringBuilder();
+        private long lastFlushNanos = System.nanoTime();
+        private int seq;
+        private boolean aborted;
+
+        private ChunkRelay(Message trigger) {
+            this.trigger = trigger;
+            userCache.getSnapshot(trigger.getReceiverId()).map(UserSnapshot::firebaseUid).ifPresent(recipientUids::add);
+            userCache.getSnapshot(trigger.getSenderId()).map(UserSnapshot::firebaseUid).ifPresent(recipientUids::add);
+        }
+
+        void accept(String delta) {
+            pending.append(delta);
+            if (System.nanoTime() - lastFlushNanos >= TimeUnit.MILLISECONDS.toNanos(streamFlushIntervalMs)) {
+                flush();
+            }
+        }
+
+        // The partial reply is never persisted; clients drop the bubble and get the fallback message
+        void abort() {
+            aborted = true;
+            pending.setLength(0);
+            send(AiChunk.aborted(streamId, trigger, seq++, createdAt));
+        }
+
+        void finish(Long messageId) {
+            if (aborted) {
+                return;
+            }
+            flush();
+            send(AiChunk.done(streamId, trigger, seq++, messageId, createdAt));
+        }
+
+        private void flush() {
+            lastFlushNanos = System.nanoTime();
+            if (pending.isEmpty()) {
+                return;
+            }
+            send(AiChunk.delta(streamId, trigger, seq++, pending.toString(), createdAt));
+            pending.setLength(0);
+        }
+
+        private void send(AiChunk chunk) {
+            for (String uid : recipientUids) {
+                simpMessagingTemplate.convertAndSendToUser(uid, "/queue/messages", chunk);
+            }
+        }
+    }
 }
@@ -2,18 +2,47 @@ package com.wherestrangersmeet.backend.service;
 
 import com.wherestrangersmeet.backend.model.BannedEmail;
 import com.wherestrangersmeet.backend.repository.BannedEmailRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 @Service
 public class BannedEmailService {
 
+    private static final Logger log = LoggerFactory.getLogger(BannedEmailService.class);
+    private static final int MIN_CAPACITY = 10_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final LocalDateTime EMPTY_WATERMARK = LocalDateTime.of(1970, 1, 1, 0, 0);
+
     private final BannedEmailRepository bannedEmailRepository;
+    private final Duration resyncOverlap;
+    // Bans made on this node (email -> nanoTime), kept for one overlap window
+    private final Map<String, Long> recentLocalBans = new ConcurrentHashMap<>();
+
+    // Null until loaded; callers then fall back to the database
+    private volatile BloomFilter bloomFilter;
+    // Highest created_at folded into the filter
+    private volatile LocalDateTime loadedThrough;
 
-    public BannedEmailService(BannedEmailRepository bannedEmailRepository) {
+    public BannedEmailService(
+            BannedEmailRepository bannedEmailRepository,
+            @Value("${app.banned-emails.resync-overlap-seconds:300}") long resyncOverlapSeconds) {
         this.bannedEmailRepository = bannedEmailRepository;
+        this.resyncOverlap = Duration.ofSeconds(resyncOverlapSeconds);
     }
 
     public String normalize(String email) {
@@ -22,12 +51,12 @@ public class BannedEmailService {
 
     public boolean isBanned(String email) {
         String normalizedEmail = normalize(email);
-        return normalizedEmail != null && !normalizedEmail.isBlank() && bannedEmailRepository.existsByEmail(normalizedEmail);
+        return normalizedEmail != null && !normalizedEmail.isBlank() && isBannedNormalized(normalizedEmail);
     }
 
     public void ensureNotBanned(String email) {
         String normalizedEmail = normalize(email);
-        if (normalizedEmail != null && !normalizedEmail.isBlank() && bannedEmailRepository.existsByEmail(normalizedEmail)) {
+        if (normalizedEmail != null && !normalizedEmail.isBlank() && isBannedNormalized(normalizedEmail)) {
             throw new BannedEmailException("This account has been removed and cannot be used to create a new account.");
         }
     }
@@ -48,5 +77,151 @@ public class BannedEmailService {
         bannedEmail.setSourceUserId(sourceUserId);
         bannedEmail.setReason(reason);
         bannedEmailRepository.save(bannedEmail);
+
+        recentLocalBans.put(normalizedEmail, System.nanoTime());
+        BloomFilter filter = bloomFilter;
+        if (filter != null) {
+            filter.addIfAbsent(normalizedEmail);
+        }
+    }
+
+    /**
+     * Pick up bans added elsewhere (another node, manual SQL) by re-reading rows created
+     * since the loaded watermark. Rows can commit out of created_at order and node clocks
+     * drift, so each pass re-reads an overlap window behind the watermark; re-adding a
+     * known email is a no-op. The filter is only rebuilt from scratch when missing or over
+     * capacity, and local bans from the last overlap window are replayed into the new
+     * filter so a ban() racing the rebuild is not lost in the swap.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.banned-emails.resync-ms:60000}",
+            initialDelayString = "${app.banned-emails.resync-ms:60000}")
+    public synchronized void refreshFilter() {
+        try {
+            BloomFilter current = bloomFilter;
+            LocalDateTime watermark = loadedThrough;
+            if (current == null || watermark == null || current.isOverCapacity()) {
+                rebuildFilter();
+            } else {
+                for (BannedEmail bannedEmail : bannedEmailRepository
+                        .findByCreatedAtGreaterThanEqual(watermark.minus(resyncOverlap))) {
+                    current.addIfAbsent(normalize(bannedEmail.getEmail()));
+                    if (bannedEmail.getCreatedAt().isAfter(watermark)) {
+                        watermark = bannedEmail.getCreatedAt();
+                    }
+                }
+                loadedThrough = watermark;
+            }
+            replayRecentLocalBans();
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to load banned email filter: {}", e.getMessage());
+        }
+    }
+
+    private void rebuildFilter() {
+        // Read the watermark first: rows created after it are caught by the next overlap scan
+        LocalDateTime watermark = bannedEmailRepository.findMaxCreatedAt().orElse(EMPTY_WATERMARK);
+        List<String> emails = bannedEmailRepository.findAllEmails();
+        BloomFilter rebuilt = new BloomFilter(Math.max(MIN_CAPACITY, emails.size() * 2), FALSE_POSITIVE_RATE);
+        for (String bannedEmail : emails) {
+            rebuilt.add(normalize(bannedEmail));
+        }
+        bloomFilter = rebuilt;
+        loadedThrough = watermark;
+        log.info("Banned email filter loaded with {} entries", emails.size());
+    }
+
+    private void replayRecentLocalBans() {
+        long cutoff = System.nanoTime() - resyncOverlap.toNanos();
+        recentLocalBans.values().removeIf(bannedAt -> bannedAt - cutoff < 0);
+        BloomFilter filter = bloomFilter;
+        for (String email : recentLocalBans.keySet()) {
+            filter.addIfAbsent(email);
+        }
+    }
+
+    private boolean isBannedNormalized(String normalizedEmail) {
+        BloomFilter filter = bloomFilter;
+        // A Bloom filter has no false negatives, so "not present" is final; only maybes hit the DB
+        if (filter != null && !filter.mightContain(normalizedEmail)) {
+            return false;
+        }
+        return bannedEmailRepository.existsByEmail(normalizedEmail);
+    }
+
+    /**
+     * Fixed-size Bloom filter using double hashing over a 64-bit FNV-1a hash.
+     * Bits live in an AtomicLongArray so ban() can add while readers probe.
+     */
+    static final class BloomFilter {
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+        private final int capacity;
+        private volatile int size;
+
+        BloomFilter(int capacity, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            long m = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            this.bitCount = Math.max(64, m);
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * ln2));
+            this.bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+            this.capacity = capacity;
+        }
+
+        void add(String value) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << (bit & 63);
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+            size++;
+        }
+
+        // Skips values already reported present so re-reads don't inflate size
+        void addIfAbsent(String value) {
+            if (!mightContain(value)) {
+                add(value);
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << (bit & 63))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isOverCapacity() {
+            return size > capacity;
+        }
+
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            // fmix64 from MurmurHash3 to spread FNV's weak high bits
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
     }
 }
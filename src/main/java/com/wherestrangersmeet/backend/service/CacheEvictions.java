@@ -0,0 +1,52 @@
+package com.wherestrangersmeet.backend.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Transaction-aware eviction for the local caches.
+ *
+ * Writers evict before their transaction commits, so a read that races the transaction can
+ * re-cache the pre-commit row and keep it for the full TTL (e.g. consent not yet accepted,
+ * prompt not yet answered). Evicting once more after the commit closes that window.
+ */
+final class CacheEvictions {
+
+    private CacheEvictions() {
+    }
+
+    /**
+     * Evict now and, inside a transaction, again once it has committed.
+     */
+    static void evictNowAndAfterCommit(Runnable evict) {
+        evict.run();
+        evictAgainAfterCommit(evict);
+    }
+
+    /**
+     * The second half of evictNowAndAfterCommit, for callers whose first eviction already
+     * happened (e.g. through @CacheEvict). Does nothing outside a transaction.
+     */
+    static void evictAgainAfterCommit(Runnable evict) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            afterCommit(evict);
+        }
+    }
+
+    /**
+     * Run once the surrounding transaction commits, or right away outside a transaction.
+     * Nothing runs if the transaction rolls back.
+     */
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
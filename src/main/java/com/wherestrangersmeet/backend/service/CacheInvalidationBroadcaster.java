@@ -0,0 +1,407 @@
+package com.wherestrangersmeet.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Propagates local cache evictions to every other node through Postgres LISTEN/NOTIFY.
+ *
+ * Evictions are queued once the surrounding transaction commits (so peers never reload the
+ * pre-commit row) and flushed in batches, one NOTIFY per batch; batches that fail to send are
+ * re-queued. Each node keeps a dedicated LISTEN connection; while that connection is down or
+ * publishing fails, tracked caches drop to a short expireAfterWrite so stale entries age out
+ * quickly. After a listener reconnect they are also cleared, because any events sent in the
+ * meantime are lost.
+ *
+ * The Supabase transaction pooler (port 6543) accepts LISTEN but never delivers the
+ * notifications, so the listener needs its own session-mode or direct connection. When
+ * enabled, app.cache.invalidation.listen-url must be set; there is deliberately no fallback
+ * to spring.datasource.url, and a pooler URL is refused at startup.
+ */
+@Service
+public class CacheInvalidationBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBroadcaster.class);
+
+    // NOTIFY payloads are capped at 8000 bytes; leave headroom for the envelope.
+    private static final int MAX_PAYLOAD_BYTES = 7000;
+    // Beyond this many queued keys (database down for a while) pending evictions collapse to clears
+    private static final int MAX_PENDING = 10_000;
+    private static final String ALL_ENTRIES = "*";
+    private static final String TRANSACTION_POOLER_PORT = ":6543/";
+
+    private final CacheManagementService cacheManagementService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentLinkedQueue<Eviction> pending = new ConcurrentLinkedQueue<>();
+    private final Set<String> trackedCaches = ConcurrentHashMap.newKeySet();
+    private final Map<String, Duration> normalTtls = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+    private final String channel;
+    private final String listenUrl;
+    private final String username;
+    private final String password;
+    private final Duration fallbackTtl;
+
+    private volatile boolean running;
+    private volatile boolean degraded;
+    private volatile boolean listenerDown;
+    private volatile boolean publishFailing;
+    private volatile Connection listenConnection;
+    private Thread listenerThread;
+
+    public CacheInvalidationBroadcaster(
+            CacheManagementService cacheManagementService,
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            @Value("${app.cache.invalidation.enabled:false}") boolean enabled,
+            @Value("${app.cache.invalidation.channel:cache_invalidation}") String channel,
+            @Value("${app.cache.invalidation.listen-url:}") String listenUrl,
+            @Value("${spring.datasource.username}") String username,
+            @Value("${spring.datasource.password}") String password,
+            @Value("${app.cache.invalidation.fallback-ttl-seconds:30}") long fallbackTtlSeconds) {
+        this.cacheManagementService = cacheManagementService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.listenUrl = listenUrl;
+        this.username = username;
+        this.password = password;
+        this.fallbackTtl = Duration.ofSeconds(fallbackTtlSeconds);
+
+        if (enabled && (listenUrl == null || listenUrl.isBlank())) {
+            throw new IllegalStateException("app.cache.invalidation.listen-url must be set to a session-mode "
+                    + "or direct Postgres URL when app.cache.invalidation.enabled=true");
+        }
+        if (enabled && listenUrl.contains(TRANSACTION_POOLER_PORT)) {
+            throw new IllegalStateException("app.cache.invalidation.listen-url points at the transaction pooler "
+                    + "(port 6543), which does not deliver LISTEN notifications; use the session pooler or a "
+                    + "direct connection");
+        }
+    }
+
+    /**
+     * Mark caches whose TTL should be shortened while the invalidation channel is unavailable.
+     */
+    public void track(String... cacheNames) {
+        for (String name : cacheNames) {
+            trackedCaches.add(name);
+        }
+        if (degraded) {
+            applyFallbackTtl();
+        }
+    }
+
+    /**
+     * Queue an eviction of a single key for the other nodes. Local eviction is the caller's job.
+     */
+    public void publish(String cacheName, Object key) {
+        if (!enabled || key == null) {
+            return;
+        }
+        if (key instanceof Long || key instanceof Integer) {
+            enqueueAfterCommit(new Eviction(cacheName, "L", key.toString()));
+        } else {
+            enqueueAfterCommit(new Eviction(cacheName, "S", key.toString()));
+        }
+    }
+
+    /**
+     * Queue a full clear of a cache for the other nodes.
+     */
+    public void publishClear(String cacheName) {
+        if (enabled) {
+            enqueueAfterCommit(new Eviction(cacheName, ALL_ENTRIES, ""));
+        }
+    }
+
+    /**
+     * Inside a transaction the eviction is only queued once it commits; a peer that evicted
+     * earlier could reload the old row and keep it. Rolled-back changes send nothing.
+     */
+    private void enqueueAfterCommit(Eviction eviction) {
+        CacheEvictions.afterCommit(() -> pending.add(eviction));
+    }
+
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void startListener() {
+        if (!enabled) {
+            log.info("Cross-node cache invalidation disabled");
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        log.info("📡 Cache invalidation listener started on channel [{}] (node {})", channel, nodeId);
+    }
+
+    @PreDestroy
+    void stopListener() {
+        running = false;
+        flush();
+        closeQuietly(listenConnection);
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.flush-interval-ms:200}")
+    public void flush() {
+        if (!enabled || pending.isEmpty()) {
+            return;
+        }
+
+        Set<Eviction> batch = new LinkedHashSet<>();
+        Eviction next;
+        while ((next = pending.poll()) != null) {
+            batch.add(next);
+        }
+
+        List<List<Eviction>> chunks = toChunks(batch);
+        for (int i = 0; i < chunks.size(); i++) {
+            try {
+                jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel, toPayload(chunks.get(i)));
+            } catch (Exception e) {
+                // Keep this chunk and the rest for the next flush; meanwhile the fallback TTL bounds staleness.
+                log.warn("⚠️ Failed to publish cache invalidations: {}", e.getMessage());
+                requeue(chunks.subList(i, chunks.size()));
+                publishFailing = true;
+                enterDegradedMode();
+                return;
+            }
+        }
+        if (publishFailing) {
+            publishFailing = false;
+            leaveDegradedMode();
+        }
+    }
+
+    private void requeue(List<List<Eviction>> unsent) {
+        List<Eviction> evictions = new ArrayList<>();
+        unsent.forEach(evictions::addAll);
+        if (evictions.size() + pending.size() <= MAX_PENDING) {
+            pending.addAll(evictions);
+            return;
+        }
+        // Too much to replay key by key: tell peers to clear each affected cache instead
+        Set<String> cacheNames = new LinkedHashSet<>();
+        evictions.forEach(eviction -> cacheNames.add(eviction.cache()));
+        Eviction next;
+        while ((next = pending.poll()) != null) {
+            cacheNames.add(next.cache());
+        }
+        cacheNames.forEach(name -> pending.add(new Eviction(name, ALL_ENTRIES, "")));
+    }
+
+    private List<List<Eviction>> toChunks(Set<Eviction> batch) {
+        List<List<Eviction>> chunks = new ArrayList<>();
+        List<Eviction> chunk = new ArrayList<>();
+        int size = 0;
+        for (Eviction eviction : batch) {
+            int entrySize = eviction.cache().length() + eviction.key().length() + 32;
+            if (size > 0 && size + entrySize > MAX_PAYLOAD_BYTES) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                size = 0;
+            }
+            chunk.add(eviction);
+            size += entrySize;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private String toPayload(List<Eviction> chunk) {
+        ObjectNode envelope = newEnvelope();
+        for (Eviction eviction : chunk) {
+            ((ArrayNode) envelope.get("e")).addArray()
+                    .add(eviction.cache())
+                    .add(eviction.type())
+                    .add(eviction.key());
+        }
+        return envelope.toString();
+    }
+
+    private ObjectNode newEnvelope() {
+        ObjectNode envelope = objectMapper.createObjectNode();
+        envelope.put("o", nodeId);
+        envelope.putArray("e");
+        return envelope;
+    }
+
+    private void listenLoop() {
+        long backoffMs = 1000;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(listenUrl, username, password)) {
+                listenConnection = connection;
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                if (listenerDown) {
+                    listenerDown = false;
+                    // Events published while we were disconnected are gone, so start clean.
+                    clearTrackedCaches();
+                }
+                leaveDegradedMode();
+                backoffMs = 1000;
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(10_000);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        apply(notification.getParameter());
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("⚠️ Cache invalidation listener disconnected: {}", e.getMessage());
+                listenerDown = true;
+                enterDegradedMode();
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoffMs = Math.min(backoffMs * 2, 30_000);
+            } finally {
+                listenConnection = null;
+            }
+        }
+    }
+
+    private void apply(String payload) {
+        try {
+            JsonNode envelope = objectMapper.readTree(payload);
+            if (nodeId.equals(envelope.path("o").asText())) {
+                return;
+            }
+            for (JsonNode entry : envelope.path("e")) {
+                String cacheName = entry.get(0).asText();
+                String type = entry.get(1).asText();
+                String key = entry.get(2).asText();
+                cacheManagementService.findNativeCache(cacheName).ifPresent(cache -> {
+                    switch (type) {
+                        case ALL_ENTRIES -> cache.invalidateAll();
+                        case "L" -> cache.invalidate(Long.valueOf(key));
+                        default -> cache.invalidate(key);
+                    }
+                });
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Ignoring malformed cache invalidation payload ({} bytes): {}",
+                    payload.getBytes(StandardCharsets.UTF_8).length, e.getMessage());
+        }
+    }
+
+    private synchronized void enterDegradedMode() {
+        if (degraded) {
+            return;
+        }
+        degraded = true;
+        applyFallbackTtl();
+        log.warn("⚠️ Cache invalidation channel down, tracked caches now expire after {}s", fallbackTtl.toSeconds());
+    }
+
+    /**
+     * Restores normal TTLs once both the listener and publishing work again.
+     */
+    private synchronized void leaveDegradedMode() {
+        if (!degraded || listenerDown || publishFailing) {
+            return;
+        }
+        degraded = false;
+        for (String name : trackedCaches) {
+            cacheManagementService.findNativeCache(name).ifPresent(cache -> {
+                Duration normal = normalTtls.remove(name);
+                if (normal != null) {
+                    expireAfterWrite(cache).ifPresent(policy -> policy.setExpiresAfter(normal));
+                }
+            });
+        }
+        log.info("✅ Cache invalidation channel restored, tracked cache TTLs restored");
+    }
+
+    private void clearTrackedCaches() {
+        for (String name : trackedCaches) {
+            cacheManagementService.findNativeCache(name).ifPresent(Cache::invalidateAll);
+        }
+        log.info("🗑️ Tracked caches cleared after cache invalidation listener reconnect");
+    }
+
+    private void applyFallbackTtl() {
+        for (String name : trackedCaches) {
+            cacheManagementService.findNativeCache(name)
+                    .flatMap(CacheInvalidationBroadcaster::expireAfterWrite)
+                    .ifPresent(policy -> {
+                        normalTtls.putIfAbsent(name, policy.getExpiresAfter());
+                        if (policy.getExpiresAfter().compareTo(fallbackTtl) > 0) {
+                            policy.setExpiresAfter(fallbackTtl);
+                        }
+                    });
+        }
+    }
+
+    private static java.util.Optional<Policy.FixedExpiration<Object, Object>> expireAfterWrite(Cache<Object, Object> cache) {
+        return cache.policy().expireAfterWrite();
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (Exception ignored) {
+            // shutting down
+        }
+    }
+
+    private record Eviction(String cache, String type, String key) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.wherestrangersmeet.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Single place to inspect and manage every in-process Caffeine cache.
+ *
+ * Spring-managed caches (CacheConfig) are picked up from the CacheManager and are
+ * bound to Micrometer by the actuator cache metrics auto-configuration. Caches that
+ * live outside the CacheManager register themselves here and are bound on registration.
+ */
+@Service
+public class CacheManagementService {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheManagementService.class);
+
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Cache<?, ?>> standaloneCaches = new ConcurrentHashMap<>();
+    private final Map<String, IntSupplier> warmers = new ConcurrentHashMap<>();
+
+    public CacheManagementService(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Register a Caffeine cache that is not managed by Spring's CacheManager.
+     * The cache must be built with recordStats() for hit/miss numbers to be meaningful.
+     */
+    public void register(String name, Cache<?, ?> cache) {
+        if (standaloneCaches.putIfAbsent(name, cache) == null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+            log.info("Registered cache [{}] for stats and metrics", name);
+        }
+    }
+
+    /**
+     * Register a warm-up routine for a cache. The supplier returns how many entries it loaded.
+     */
+    public void registerWarmer(String name, IntSupplier warmer) {
+        warmers.put(name, warmer);
+    }
+
+    public List<String> getCacheNames() {
+        TreeSet<String> names = new TreeSet<>(cacheManager.getCacheNames());
+        names.addAll(standaloneCaches.keySet());
+        return new ArrayList<>(names);
+    }
+
+    public List<Map<String, Object>> getAllStats() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (String name : getCacheNames()) {
+            findNativeCache(name).ifPresent(cache -> result.add(toStats(name, cache)));
+        }
+        return result;
+    }
+
+    public Map<String, Object> getStats(String name) {
+        return toStats(name, requireNativeCache(name));
+    }
+
+    public void invalidate(String name) {
+        requireNativeCache(name).invalidateAll();
+        log.info("🗑️ Cache [{}] invalidated", name);
+    }
+
+    public int warm(String name) {
+        requireNativeCache(name);
+        IntSupplier warmer = warmers.get(name);
+        if (warmer == null) {
+            throw new UnsupportedOperationException("Cache does not support warming: " + name);
+        }
+        int loaded = warmer.getAsInt();
+        log.info("🔥 Cache [{}] warmed with {} entries", name, loaded);
+        return loaded;
+    }
+
+    public Optional<Cache<Object, Object>> findNativeCache(String name) {
+        Cache<?, ?> standalone = standaloneCaches.get(name);
+        if (standalone != null) {
+            return Optional.of(uncheckedCast(standalone));
+        }
+
+        org.springframework.cache.Cache springCache = cacheManager.getCache(name);
+        if (springCache instanceof CaffeineCache caffeineCache) {
+            return Optional.of(caffeineCache.getNativeCache());
+        }
+        return Optional.empty();
+    }
+
+    private Cache<Object, Object> requireNativeCache(String name) {
+        if (name == null || name.isBlank() || !getCacheNames().contains(name)) {
+            throw new IllegalArgumentException("Unknown cache: " + name);
+        }
+        return findNativeCache(name)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown cache: " + name));
+    }
+
+    private Map<String, Object> toStats(String name, Cache<Object, Object> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("name", name);
+        payload.put("size", cache.estimatedSize());
+        payload.put("hitCount", stats.hitCount());
+        payload.put("missCount", stats.missCount());
+        payload.put("hitRate", stats.hitRate());
+        payload.put("evictionCount", stats.evictionCount());
+        payload.put("loadSuccessCount", stats.loadSuccessCount());
+        payload.put("loadFailureCount", stats.loadFailureCount());
+        payload.put("totalLoadTimeMs", TimeUnit.NANOSECONDS.toMillis(stats.totalLoadTime()));
+        payload.put("averageLoadPenaltyMs", stats.averageLoadPenalty() / 1_000_000d);
+        payload.put("warmable", warmers.containsKey(name));
+        return payload;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cache<Object, Object> uncheckedCast(Cache<?, ?> cache) {
+        return (Cache<Object, Object>) cache;
+    }
+}
@@ -0,0 +1,82 @@
+package com.wherestrangersmeet.backend.service;
+
+import com.wherestrangersmeet.backend.model.User;
+import com.wherestrangersmeet.backend.model.UserPhoto;
+import com.wherestrangersmeet.backend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Warm-up routines for the shared caches, exposed through the admin cache endpoint.
+ * Online users are the ones about to hit the hot paths, so they are what we preload.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheWarmers {
+
+    private static final int MAX_WARM_USERS = 500;
+
+    private final CacheManagementService cacheManagementService;
+    private final CacheManager cacheManager;
+    private final UserRepository userRepository;
+    private final FileStorageService fileStorageService;
+
+    @PostConstruct
+    void registerWarmers() {
+        cacheManagementService.registerWarmer("userIdCache", this::warmUserIdCache);
+        cacheManagementService.registerWarmer("firebaseUidCache", this::warmFirebaseUidCache);
+        cacheManagementService.registerWarmer("presignedUrls", this::warmPresignedUrls);
+    }
+
+    private int warmUserIdCache() {
+        Cache cache = cacheManager.getCache("userIdCache");
+        int loaded = 0;
+        for (Object[] row : onlineUidPairs()) {
+            cache.put(row[1], row[0]);
+            loaded++;
+        }
+        return loaded;
+    }
+
+    private int warmFirebaseUidCache() {
+        Cache cache = cacheManager.getCache("firebaseUidCache");
+        int loaded = 0;
+        for (Object[] row : onlineUidPairs()) {
+            cache.put(row[0], row[1]);
+            loaded++;
+        }
+        return loaded;
+    }
+
+    private int warmPresignedUrls() {
+        int loaded = 0;
+        for (User user : onlineUsers()) {
+            if (user.getAvatarUrl() != null) {
+                fileStorageService.generatePresignedUrl(user.getAvatarUrl());
+                loaded++;
+            }
+            for (UserPhoto photo : user.getPhotos()) {
+                if (photo.getUrl() != null) {
+                    fileStorageService.generatePresignedUrl(photo.getUrl());
+                    loaded++;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private List<Object[]> onlineUidPairs() {
+        return userRepository.findOnlineUidPairs(PageRequest.of(0, MAX_WARM_USERS));
+    }
+
+    private List<User> onlineUsers() {
+        // The limit is applied in SQL; only these users' photo collections are loaded
+        return userRepository.findOnlineUsers(PageRequest.of(0, MAX_WARM_USERS));
+    }
+}
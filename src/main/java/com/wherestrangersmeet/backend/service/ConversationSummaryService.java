@@ -0,0 +1,171 @@
+package com.wherestrangersmeet.backend.service;
+
+import com.wherestrangersmeet.backend.model.ConversationSummary;
+import com.wherestrangersmeet.backend.model.Message;
+import com.wherestrangersmeet.backend.repository.ConversationSummaryRepository;
+import com.wherestrangersmeet.backend.repository.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps a rolling summary per conversation so @momo prompts carry the summary plus the
+ * messages since, instead of a 30-message transcript every time.
+ *
+ * Once tail + refresh-every messages have piled up past the summary, all but the newest
+ * tail are folded into it with one summarization call. The prompt therefore never holds
+ * more than tail + refresh-every raw messages. Deleting a message that a summary already
+ * covers drops the summary, so deleted text never lingers in it.
+ *
+ * The summarization call runs outside any transaction, so a message can be deleted while
+ * it is in flight. The result is saved only after locking the folded messages and the old
+ * summary row and re-checking them; a delete either commits first and the result is
+ * dropped, or waits for the save and then drops the new summary through deleteCovering.
+ */
+@Service
+public class ConversationSummaryService {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationSummaryService.class);
+
+    private final ConversationSummaryRepository conversationSummaryRepository;
+    private final MessageRepository messageRepository;
+    private final AiService aiService;
+    private final TransactionTemplate transactionTemplate;
+    private final int tailMessages;
+    private final int refreshEvery;
+    private final int maxRecent;
+    private final int maxFoldBatch;
+
+    public ConversationSummaryService(
+            ConversationSummaryRepository conversationSummaryRepository,
+            MessageRepository messageRepository,
+            AiService aiService,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.ai.summary.tail-messages:8}") int tailMessages,
+            @Value("${app.ai.summary.refresh-every:16}") int refreshEvery,
+            @Value("${app.ai.summary.max-recent:30}") int maxRecent,
+            @Value("${app.ai.summary.max-fold-batch:200}") int maxFoldBatch) {
+        this.conversationSummaryRepository = conversationSummaryRepository;
+        this.messageRepository = messageRepository;
+        this.aiService = aiService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tailMessages = tailMessages;
+        this.refreshEvery = refreshEvery;
+        this.maxRecent = maxRecent;
+        this.maxFoldBatch = maxFoldBatch;
+    }
+
+    /**
+     * The summary (null if none yet) and the messages it does not cover, newest first and
+     * capped at max-recent, matching what findConversation used to return.
+     */
+    public ConversationContext loadContext(Long userA, Long userB) {
+        Optional<ConversationSummary> summary = find(userA, userB);
+        long coveredUntil = summary.map(ConversationSummary::getCoveredUntilMessageId).orElse(0L);
+        List<Message> recent = messageRepository.findConversationAfterId(
+                userA, userB, coveredUntil, PageRequest.of(0, maxRecent));
+        return new ConversationContext(summary.map(ConversationSummary::getSummaryText).orElse(null), recent);
+    }
+
+    /**
+     * Fold older messages into the summary if enough have accumulated. Runs after a reply
+     * has been sent, so the summarization call never delays one.
+     */
+    public void refreshIfDue(Long userA, Long userB) {
+        Optional<ConversationSummary> existing = find(userA, userB);
+        long coveredUntil = existing.map(ConversationSummary::getCoveredUntilMessageId).orElse(0L);
+        long pending = messageRepository.countConversationAfterId(userA, userB, coveredUntil);
+        if (pending < tailMessages + refreshEvery) {
+            return;
+        }
+
+        // Newest first; keep the tail raw and fold the rest. A backlog larger than one batch
+        // (e.g. a long chat summarized for the first time) starts from its most recent part.
+        List<Message> newestFirst = messageRepository.findConversationAfterId(
+                userA, userB, coveredUntil, PageRequest.of(0, tailMessages + maxFoldBatch));
+        if (newestFirst.size() <= tailMessages) {
+            return;
+        }
+        List<Message> toFold = new ArrayList<>(newestFirst.subList(tailMessages, newestFirst.size()));
+        Collections.reverse(toFold);
+
+        String previous = existing.map(ConversationSummary::getSummaryText).orElse(null);
+        AiService.SummaryUpdate updated = aiService.summarizeConversation(previous, toFold);
+        if (updated == null || updated.text().isBlank()) {
+            return;
+        }
+
+        // Only what fit the token budget was folded; the rest stays raw until the next round.
+        // Messages already deleted were left out of the summary; only later deletes invalidate it
+        long newCoveredUntil = updated.coveredUntilMessageId();
+        List<Message> folded = toFold.stream()
+                .filter(msg -> msg.getId() <= newCoveredUntil)
+                .toList();
+        List<Long> foldedIds = folded.stream()
+                .filter(msg -> !Boolean.TRUE.equals(msg.getIsDeleted()))
+                .map(Message::getId)
+                .toList();
+        Long previousId = existing.map(ConversationSummary::getId).orElse(null);
+        Boolean saved = transactionTemplate.execute(status ->
+                saveIfUnchanged(userA, userB, previousId, coveredUntil, newCoveredUntil, updated.text(), foldedIds));
+        if (!Boolean.TRUE.equals(saved)) {
+            log.info("📝 Dropped conversation summary for {}:{}: messages were deleted during summarization",
+                    Math.min(userA, userB), Math.max(userA, userB));
+            return;
+        }
+        log.info("📝 Conversation summary for {}:{} now covers up to message {} ({} folded)",
+                Math.min(userA, userB), Math.max(userA, userB), newCoveredUntil, folded.size());
+    }
+
+    private boolean saveIfUnchanged(Long userA, Long userB, Long previousId, long previousCoveredUntil,
+            long newCoveredUntil, String summaryText, List<Long> foldedIds) {
+        if (!foldedIds.isEmpty() && messageRepository.lockAllByIdIn(foldedIds).stream()
+                .anyMatch(msg -> Boolean.TRUE.equals(msg.getIsDeleted()))) {
+            return false;
+        }
+
+        ConversationSummary summary;
+        if (previousId != null) {
+            // Gone means a covered message was deleted, and its text may be in the old summary we built on
+            Optional<ConversationSummary> current = conversationSummaryRepository.findByIdForUpdate(previousId);
+            if (current.isEmpty() || current.get().getCoveredUntilMessageId() != previousCoveredUntil) {
+                return false;
+            }
+            summary = current.get();
+        } else {
+            summary = new ConversationSummary();
+            summary.setUserLowId(Math.min(userA, userB));
+            summary.setUserHighId(Math.max(userA, userB));
+        }
+        summary.setSummaryText(summaryText);
+        summary.setCoveredUntilMessageId(newCoveredUntil);
+        conversationSummaryRepository.save(summary);
+        return true;
+    }
+
+    @Transactional
+    public void onMessageDeleted(Message message) {
+        conversationSummaryRepository.deleteCovering(
+                Math.min(message.getSenderId(), message.getReceiverId()),
+                Math.max(message.getSenderId(), message.getReceiverId()),
+                message.getId());
+    }
+
+    private Optional<ConversationSummary> find(Long userA, Long userB) {
+        return conversationSummaryRepository.findByUserLowIdAndUserHighId(
+                Math.min(userA, userB), Math.max(userA, userB));
+    }
+
+    public record ConversationContext(String summary, List<Message> recentMessages) {
+    }
+}
@@ -0,0 +1,128 @@
+package com.wherestrangersmeet.backend.service;
+
+import com.wherestrangersmeet.backend.model.DailyPrompt;
+import com.wherestrangersmeet.backend.repository.DailyPromptRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory view of today's prompt and the current-or-latest prompt, so prompt lookups
+ * stay out of every profile and feed request.
+ *
+ * The holder is swapped atomically: preloaded at startup, rolled over at Asia/Singapore
+ * midnight, refreshed when admins write prompts, and resynced periodically to pick up rows
+ * inserted straight into the database.
+ */
+@Service
+public class DailyPromptCalendar {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyPromptCalendar.class);
+    public static final ZoneId APP_ZONE = ZoneId.of("Asia/Singapore");
+
+    private final DailyPromptRepository dailyPromptRepository;
+    private final AtomicReference<Entry> current = new AtomicReference<>();
+    private final List<Runnable> rolloverListeners = new CopyOnWriteArrayList<>();
+
+    public DailyPromptCalendar(DailyPromptRepository dailyPromptRepository) {
+        this.dailyPromptRepository = dailyPromptRepository;
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(APP_ZONE);
+    }
+
+    public Optional<DailyPrompt> getTodayPrompt() {
+        return Optional.ofNullable(entry().todayPrompt());
+    }
+
+    public Optional<DailyPrompt> getCurrentOrLatestPrompt() {
+        return Optional.ofNullable(entry().currentPrompt());
+    }
+
+    /**
+     * Called after the calendar changes (date rollover or prompt edits), e.g. to drop
+     * caches derived from the current prompt.
+     */
+    public void onChange(Runnable listener) {
+        rolloverListeners.add(listener);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        refresh();
+    }
+
+    @Scheduled(cron = "0 0 0 * * *", zone = "Asia/Singapore")
+    public void rollover() {
+        refresh();
+        log.info("📅 Daily prompt calendar rolled over to {}", today());
+    }
+
+    @Scheduled(fixedDelayString = "${app.daily-prompt.calendar-resync-ms:600000}",
+            initialDelayString = "${app.daily-prompt.calendar-resync-ms:600000}")
+    public void resync() {
+        Entry before = current.get();
+        Entry after = refresh();
+        if (before != null && !after.sameCalendar(before)) {
+            log.info("📅 Daily prompt calendar changed on resync");
+        }
+    }
+
+    public synchronized Entry refresh() {
+        LocalDate date = today();
+        DailyPrompt todayPrompt = dailyPromptRepository.findByActiveDate(date).orElse(null);
+        DailyPrompt currentPrompt = todayPrompt != null
+                ? todayPrompt
+                : dailyPromptRepository.findTopByOrderByActiveDateDesc().orElse(null);
+        Entry entry = new Entry(date, todayPrompt, currentPrompt);
+        Entry previous = current.getAndSet(entry);
+        if (!entry.sameCalendar(previous)) {
+            rolloverListeners.forEach(Runnable::run);
+        }
+        return entry;
+    }
+
+    private Entry entry() {
+        Entry entry = current.get();
+        // Covers the first request before preload and a midnight cron that has not fired yet
+        if (entry == null || !entry.date().equals(today())) {
+            entry = refresh();
+        }
+        return entry;
+    }
+
+    public record Entry(LocalDate date, DailyPrompt todayPrompt, DailyPrompt currentPrompt) {
+
+        /**
+         * Same date and same prompts (id, text, date). Counters such as responseCount change
+         * constantly and must not count as a calendar change.
+         */
+        boolean sameCalendar(Entry other) {
+            return other != null
+                    && date.equals(other.date)
+                    && samePrompt(todayPrompt, other.todayPrompt)
+                    && samePrompt(currentPrompt, other.currentPrompt);
+        }
+
+        private static boolean samePrompt(DailyPrompt a, DailyPrompt b) {
+            if (a == null || b == null) {
+                return a == b;
+            }
+            return Objects.equals(a.getId(), b.getId())
+                    && Objects.equals(a.getPromptText(), b.getPromptText())
+                    && Objects.equals(a.getActiveDate(), b.getActiveDate());
+        }
+    }
+}
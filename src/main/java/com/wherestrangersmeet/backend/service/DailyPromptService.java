@@ -2,19 +2,32 @@ package com.wherestrangersmeet.backend.service;
 
 import com.wherestrangersmeet.backend.model.DailyPrompt;
 import com.wherestrangersmeet.backend.model.DailyPromptResponse;
+import com.wherestrangersmeet.backend.model.FeedSlice;
+import com.wherestrangersmeet.backend.model.PromptAnswer;
+import com.wherestrangersmeet.backend.model.PromptState;
 import com.wherestrangersmeet.backend.model.User;
 import com.wherestrangersmeet.backend.repository.DailyPromptRepository;
 import com.wherestrangersmeet.backend.repository.DailyPromptResponseRepository;
 import com.wherestrangersmeet.backend.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.data.domain.PageRequest;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.ZoneId;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -24,29 +37,36 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class DailyPromptService {
 
-    private static final ZoneId APP_ZONE = ZoneId.of("Asia/Singapore");
+    private static final Logger log = LoggerFactory.getLogger(DailyPromptService.class);
     private static final int MAX_ANSWER_LENGTH = 1000;
+    private static final String PROMPT_STATE_CACHE = "promptStateCache";
+    // Upper bound for the first answers page; LocalDateTime.MAX is out of range for Postgres
+    private static final LocalDateTime ANSWERS_START = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
 
     private final DailyPromptRepository dailyPromptRepository;
     private final DailyPromptResponseRepository dailyPromptResponseRepository;
     private final UserRepository userRepository;
+    private final FeedRankingIndex feedRankingIndex;
+    private final DailyPromptCalendar dailyPromptCalendar;
+    private final CacheManagementService cacheManagementService;
+    private final CacheInvalidationBroadcaster invalidationBroadcaster;
+    private final FileStorageService fileStorageService;
+    private final Cache<Long, PromptState> promptStateCache = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofHours(6))
+            .maximumSize(10000)
+            .recordStats()
+            .build();
 
     public LocalDate today() {
-        return LocalDate.now(APP_ZONE);
+        return dailyPromptCalendar.today();
     }
 
-    @Transactional(readOnly = true)
     public Optional<DailyPrompt> getTodayPrompt() {
-        return dailyPromptRepository.findByActiveDate(today());
+        return dailyPromptCalendar.getTodayPrompt();
     }
 
-    @Transactional(readOnly = true)
     public Optional<DailyPrompt> getCurrentOrLatestPrompt() {
-        Optional<DailyPrompt> todayPromptOpt = getTodayPrompt();
-        if (todayPromptOpt.isPresent()) {
-            return todayPromptOpt;
-        }
-        return dailyPromptRepository.findTopByOrderByActiveDateDesc();
+        return dailyPromptCalendar.getCurrentOrLatestPrompt();
     }
 
     @Transactional(readOnly = true)
@@ -55,66 +75,78 @@ public class DailyPromptService {
                 .flatMap(prompt -> dailyPromptResponseRepository.findByDailyPromptIdAndUserId(prompt.getId(), userId));
     }
 
-    @Transactional(readOnly = true)
+    @PostConstruct
+    void registerPromptStateCache() {
+        cacheManagementService.register(PROMPT_STATE_CACHE, promptStateCache);
+        invalidationBroadcaster.track(PROMPT_STATE_CACHE);
+        // Every cached state is relative to the current prompt, so a new day (or prompt edit) voids them all
+        dailyPromptCalendar.onChange(() -> {
+            promptStateCache.invalidateAll();
+            invalidationBroadcaster.publishClear(PROMPT_STATE_CACHE);
+        });
+    }
+
     public Map<String, Object> getTodayPromptState(Long userId) {
+        PromptState state = getPromptState(userId);
         Map<String, Object> result = new HashMap<>();
-        Optional<DailyPrompt> todayPromptOpt = getTodayPrompt();
-        Optional<DailyPrompt> currentPromptOpt = getCurrentOrLatestPrompt();
-        Optional<DailyPromptResponse> todayResponseOpt = todayPromptOpt
-                .flatMap(prompt -> dailyPromptResponseRepository.findByDailyPromptIdAndUserId(prompt.getId(), userId));
-        Optional<DailyPromptResponse> currentPromptResponseOpt = currentPromptOpt
-                .flatMap(prompt -> dailyPromptResponseRepository.findByDailyPromptIdAndUserId(prompt.getId(), userId));
-        Optional<DailyPromptResponse> latestResponseOpt = dailyPromptResponseRepository
-                .findLatestByUserId(userId, PageRequest.of(0, 1))
-                .stream()
-                .findFirst();
-
-        if (todayResponseOpt.isPresent()) {
-            DailyPromptResponse response = todayResponseOpt.get();
-            DailyPrompt prompt = response.getDailyPrompt();
-            result.put("prompt", buildPromptData(prompt));
-            result.put("answered", true);
-            result.put("canAnswer", false);
-            result.put("answer", response.getAnswerText());
-            result.put("answeredAt", response.getCreatedAt());
-            return result;
-        }
-
-        if (currentPromptResponseOpt.isPresent()) {
-            DailyPromptResponse response = currentPromptResponseOpt.get();
-            DailyPrompt prompt = response.getDailyPrompt();
-            result.put("prompt", buildPromptData(prompt));
-            result.put("answered", true);
-            result.put("canAnswer", todayPromptOpt.isPresent() && !todayResponseOpt.isPresent());
-            result.put("answer", response.getAnswerText());
-            result.put("answeredAt", response.getCreatedAt());
-            return result;
-        }
-
-        if (currentPromptOpt.isPresent()) {
-            DailyPrompt prompt = currentPromptOpt.get();
-            result.put("prompt", buildPromptData(prompt));
+        if (state.todayPromptId() == null) {
+            result.put("prompt", null);
             result.put("answered", false);
-            result.put("canAnswer", todayPromptOpt.isPresent());
+            result.put("canAnswer", false);
             return result;
         }
 
-        if (latestResponseOpt.isPresent()) {
-            DailyPromptResponse response = latestResponseOpt.get();
-            DailyPrompt prompt = response.getDailyPrompt();
-            result.put("prompt", buildPromptData(prompt));
-            result.put("answered", true);
+        result.put("prompt", buildPromptData(state));
+        result.put("answered", state.todayPromptAnswered());
+        if (Boolean.TRUE.equals(state.todayPromptAnswered())) {
             result.put("canAnswer", false);
-            result.put("answer", response.getAnswerText());
-            result.put("answeredAt", response.getCreatedAt());
+            result.put("answer", state.todayPromptAnswer());
+            result.put("answeredAt", state.todayPromptAnsweredAt());
         } else {
-            result.put("prompt", null);
-            result.put("answered", false);
-            result.put("canAnswer", false);
+            // Unanswered states are always about the current prompt, which may be an older one
+            result.put("canAnswer", getTodayPrompt().isPresent());
         }
         return result;
     }
 
+    /**
+     * One user's prompt state: one query on a miss, then cached until they answer or the
+     * calendar changes.
+     */
+    public PromptState getPromptState(Long userId) {
+        return promptStateCache.get(userId,
+                id -> getPromptStates(List.of(id)).getOrDefault(id, PromptState.none()));
+    }
+
+    /**
+     * Catch-up for rows written before the derived columns existed. Each full-table UPDATE
+     * only runs when a cheap EXISTS check finds rows that still need it, so once the data
+     * is migrated startup pays two index lookups.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillDerivedColumns() {
+        try {
+            int updated = userRepository.needsLastPromptAnsweredOnBackfill()
+                    ? userRepository.backfillLastPromptAnsweredOn()
+                    : 0;
+            if (updated > 0) {
+                log.info("Backfilled last_prompt_answered_on for {} users", updated);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to backfill last_prompt_answered_on: {}", e.getMessage());
+        }
+        try {
+            int updated = dailyPromptRepository.needsResponseCountBackfill()
+                    ? dailyPromptRepository.backfillResponseCounts()
+                    : 0;
+            if (updated > 0) {
+                log.info("Reconciled response_count for {} daily prompts", updated);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to reconcile daily prompt response counts: {}", e.getMessage());
+        }
+    }
+
     @Transactional
     public DailyPromptResponse submitTodayResponse(Long userId, String answerText) {
         String normalized = answerText == null ? "" : answerText.trim();
@@ -136,30 +168,30 @@ public class DailyPromptService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         DailyPromptResponse response = new DailyPromptResponse();
-        response.setDailyPrompt(prompt);
+        // The calendar's prompt is detached; link by reference instead of merging it
+        response.setDailyPrompt(dailyPromptRepository.getReferenceById(prompt.getId()));
         response.setUser(user);
         response.setAnswerText(normalized);
-        return dailyPromptResponseRepository.save(response);
+        DailyPromptResponse saved = dailyPromptResponseRepository.save(response);
+        dailyPromptRepository.incrementResponseCount(prompt.getId());
+        userRepository.updateLastPromptAnsweredOn(userId, prompt.getActiveDate());
+        feedRankingIndex.markPromptAnswered(userId, prompt.getActiveDate());
+        invalidatePromptState(userId);
+        // Answering moves this user up in other feeds; existing snapshots pick that up the next
+        // time their viewer loads page 0, rather than every feed being reset per answer
+        return saved;
+    }
+
+    private void invalidatePromptState(Long userId) {
+        CacheEvictions.evictNowAndAfterCommit(() -> promptStateCache.invalidate(userId));
+        invalidationBroadcaster.publish(PROMPT_STATE_CACHE, userId);
     }
 
-    @Transactional(readOnly = true)
     public void attachTodayPromptState(User user) {
         if (user == null || user.getId() == null) {
             return;
         }
-
-        Optional<DailyPrompt> todayPromptOpt = getTodayPrompt();
-        Optional<DailyPrompt> currentPromptOpt = getCurrentOrLatestPrompt();
-        Optional<DailyPromptResponse> todayResponseOpt = todayPromptOpt
-                .flatMap(prompt -> dailyPromptResponseRepository.findByDailyPromptIdAndUserId(prompt.getId(), user.getId()));
-        Optional<DailyPromptResponse> currentPromptResponseOpt = currentPromptOpt
-                .flatMap(prompt -> dailyPromptResponseRepository.findByDailyPromptIdAndUserId(prompt.getId(), user.getId()));
-        Optional<DailyPromptResponse> latestResponseOpt = dailyPromptResponseRepository
-                .findLatestByUserId(user.getId(), PageRequest.of(0, 1))
-                .stream()
-                .findFirst();
-
-        applyPromptState(user, todayPromptOpt, currentPromptOpt, todayResponseOpt, currentPromptResponseOpt, latestResponseOpt);
+        getPromptState(user.getId()).applyTo(user);
     }
 
     @Transactional(readOnly = true)
@@ -171,102 +203,146 @@ public class DailyPromptService {
         List<Long> userIds = users.stream()
                 .map(User::getId)
                 .collect(Collectors.toList());
-        Optional<DailyPrompt> todayPromptOpt = getTodayPrompt();
+        Map<Long, PromptState> states = getPromptStates(userIds);
+        for (User user : users) {
+            states.getOrDefault(user.getId(), PromptState.none()).applyTo(user);
+        }
+    }
+
+    /**
+     * Prompt state for a batch of users in a single query (prompts come from the calendar),
+     * independent of batch size and of how many prompts each user has answered.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, PromptState> getPromptStates(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Map.of();
+        }
+
         Optional<DailyPrompt> currentPromptOpt = getCurrentOrLatestPrompt();
-        Map<Long, DailyPromptResponse> todayResponsesByUserId = todayPromptOpt
-                .map(prompt -> dailyPromptResponseRepository
-                        .findByUserIdsAndActiveDate(userIds, prompt.getActiveDate())
-                        .stream()
-                        .collect(Collectors.toMap(response -> response.getUser().getId(), response -> response)))
-                .orElseGet(Map::of);
-        Map<Long, DailyPromptResponse> currentPromptResponsesByUserId = currentPromptOpt
-                .map(prompt -> dailyPromptResponseRepository
-                        .findByUserIdsAndActiveDate(userIds, prompt.getActiveDate())
-                        .stream()
-                        .collect(Collectors.toMap(response -> response.getUser().getId(), response -> response)))
-                .orElseGet(Map::of);
-        Map<Long, DailyPromptResponse> latestResponsesByUserId = new LinkedHashMap<>();
-        for (DailyPromptResponse response : dailyPromptResponseRepository.findLatestByUserIds(userIds)) {
-            latestResponsesByUserId.putIfAbsent(response.getUser().getId(), response);
+        PromptState unanswered = currentPromptOpt.map(PromptState::unanswered).orElseGet(PromptState::none);
+        LocalDate currentPromptDate = currentPromptOpt.map(DailyPrompt::getActiveDate).orElse(null);
+
+        Map<Long, PromptState> states = new HashMap<>();
+        for (Object[] row : dailyPromptResponseRepository.findLatestResponseRows(userIds)) {
+            // Responses only ever target today's prompt, so the latest one is either the
+            // current prompt's answer or an older answer shown when there is no current prompt.
+            LocalDate answeredDate = toLocalDate(row[3]);
+            if (currentPromptDate == null || currentPromptDate.equals(answeredDate)) {
+                states.put(((Number) row[0]).longValue(), new PromptState(
+                        ((Number) row[1]).longValue(), answeredDate, (String) row[2],
+                        true, (String) row[4], toLocalDateTime(row[5])));
+            }
+        }
+        for (Long userId : userIds) {
+            states.putIfAbsent(userId, unanswered);
         }
+        return states;
+    }
 
-        for (User user : users) {
-            applyPromptState(
-                    user,
-                    todayPromptOpt,
-                    currentPromptOpt,
-                    Optional.ofNullable(todayResponsesByUserId.get(user.getId())),
-                    Optional.ofNullable(currentPromptResponsesByUserId.get(user.getId())),
-                    Optional.ofNullable(latestResponsesByUserId.get(user.getId())));
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
         }
+        return (LocalDate) value;
     }
 
-    private void applyPromptState(
-            User user,
-            Optional<DailyPrompt> todayPromptOpt,
-            Optional<DailyPrompt> currentPromptOpt,
-            Optional<DailyPromptResponse> todayResponseOpt,
-            Optional<DailyPromptResponse> currentPromptResponseOpt,
-            Optional<DailyPromptResponse> latestResponseOpt) {
-        if (todayResponseOpt.isPresent()) {
-            DailyPromptResponse response = todayResponseOpt.get();
-            DailyPrompt prompt = response.getDailyPrompt();
-            user.setTodayPromptId(prompt.getId());
-            user.setTodayPromptDate(prompt.getActiveDate());
-            user.setTodayPromptText(prompt.getPromptText());
-            user.setTodayPromptAnswered(true);
-            user.setTodayPromptAnswer(response.getAnswerText());
-            user.setTodayPromptAnsweredAt(response.getCreatedAt());
-            return;
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof java.sql.Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
         }
+        return (LocalDateTime) value;
+    }
 
-        if (currentPromptResponseOpt.isPresent()) {
-            DailyPromptResponse response = currentPromptResponseOpt.get();
-            DailyPrompt prompt = response.getDailyPrompt();
-            user.setTodayPromptId(prompt.getId());
-            user.setTodayPromptDate(prompt.getActiveDate());
-            user.setTodayPromptText(prompt.getPromptText());
-            user.setTodayPromptAnswered(true);
-            user.setTodayPromptAnswer(response.getAnswerText());
-            user.setTodayPromptAnsweredAt(response.getCreatedAt());
-            return;
+    public long getResponseCount(Long promptId) {
+        return dailyPromptRepository.findResponseCount(promptId).orElse(0L);
+    }
+
+    /**
+     * Keyset page of answers to a prompt (the current one when promptId is null), newest first.
+     * The cursor is opaque to clients: base64url of "createdAt|id" of the last answer returned.
+     */
+    @Transactional(readOnly = true)
+    public FeedSlice<PromptAnswer> getAnswers(Long promptId, String cursor, int size, Collection<Long> excludedUserIds) {
+        Long targetPromptId = promptId != null
+                ? promptId
+                : getCurrentOrLatestPrompt().map(DailyPrompt::getId).orElse(null);
+        if (targetPromptId == null) {
+            return new FeedSlice<>(List.of(), null, false);
         }
 
-        if (currentPromptOpt.isPresent()) {
-            DailyPrompt prompt = currentPromptOpt.get();
-            user.setTodayPromptId(prompt.getId());
-            user.setTodayPromptDate(prompt.getActiveDate());
-            user.setTodayPromptText(prompt.getPromptText());
-            user.setTodayPromptAnswered(false);
-            user.setTodayPromptAnswer(null);
-            user.setTodayPromptAnsweredAt(null);
-            return;
+        LocalDateTime beforeCreatedAt = ANSWERS_START;
+        long beforeId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = decoded.lastIndexOf('|');
+                beforeCreatedAt = LocalDateTime.parse(decoded.substring(0, separator));
+                beforeId = Long.parseLong(decoded.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
         }
 
-        if (latestResponseOpt.isPresent()) {
-            DailyPromptResponse response = latestResponseOpt.get();
-            DailyPrompt prompt = response.getDailyPrompt();
-            user.setTodayPromptId(prompt.getId());
-            user.setTodayPromptDate(prompt.getActiveDate());
-            user.setTodayPromptText(prompt.getPromptText());
-            user.setTodayPromptAnswered(true);
-            user.setTodayPromptAnswer(response.getAnswerText());
-            user.setTodayPromptAnsweredAt(response.getCreatedAt());
-        } else {
-            user.setTodayPromptId(null);
-            user.setTodayPromptDate(null);
-            user.setTodayPromptText(null);
-            user.setTodayPromptAnswered(false);
-            user.setTodayPromptAnswer(null);
-            user.setTodayPromptAnsweredAt(null);
+        List<Long> excluded = new ArrayList<>(excludedUserIds);
+        if (excluded.isEmpty()) {
+            // NOT IN () is invalid SQL; ids are positive so this never excludes anyone
+            excluded.add(-1L);
+        }
+
+        List<Object[]> rows = dailyPromptResponseRepository.findAnswerPage(
+                targetPromptId, beforeCreatedAt, beforeId, excluded, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<PromptAnswer> answers = new ArrayList<>(Math.min(rows.size(), size));
+        for (Object[] row : rows.subList(0, Math.min(rows.size(), size))) {
+            String avatarKey = (String) row[6];
+            answers.add(new PromptAnswer(
+                    ((Number) row[0]).longValue(),
+                    (String) row[1],
+                    toLocalDateTime(row[2]),
+                    ((Number) row[3]).longValue(),
+                    (String) row[4],
+                    (String) row[5],
+                    avatarKey != null ? fileStorageService.generatePresignedUrl(avatarKey) : null));
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            PromptAnswer last = answers.get(answers.size() - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.answeredAt() + "|" + last.id()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new FeedSlice<>(answers, nextCursor, hasNext);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyPrompt> listRecentPrompts() {
+        return dailyPromptRepository.findTop60ByOrderByActiveDateDesc();
+    }
+
+    @Transactional
+    public DailyPrompt upsertPrompt(LocalDate activeDate, String promptText) {
+        String normalized = promptText == null ? "" : promptText.trim();
+        if (activeDate == null) {
+            throw new IllegalArgumentException("activeDate is required");
+        }
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("promptText is required");
         }
+
+        DailyPrompt prompt = dailyPromptRepository.findByActiveDate(activeDate).orElseGet(DailyPrompt::new);
+        prompt.setActiveDate(activeDate);
+        prompt.setPromptText(normalized);
+        DailyPrompt saved = dailyPromptRepository.saveAndFlush(prompt);
+        dailyPromptCalendar.refresh();
+        return saved;
     }
 
-    private Map<String, Object> buildPromptData(DailyPrompt prompt) {
+    private Map<String, Object> buildPromptData(PromptState state) {
         Map<String, Object> promptData = new HashMap<>();
-        promptData.put("id", prompt.getId());
-        promptData.put("text", prompt.getPromptText());
-        promptData.put("activeDate", prompt.getActiveDate());
+        promptData.put("id", state.todayPromptId());
+        promptData.put("text", state.todayPromptText());
+        promptData.put("activeDate", state.todayPromptDate());
         return promptData;
     }
 }
@@ -0,0 +1,83 @@
+package com.wherestrangersmeet.backend.service;
+
+import com.wherestrangersmeet.backend.model.FeedCard;
+import com.wherestrangersmeet.backend.model.FeedPhoto;
+import com.wherestrangersmeet.backend.model.FeedProfile;
+import com.wherestrangersmeet.backend.model.PromptState;
+import com.wherestrangersmeet.backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds feed cards for a page of user ids with set-based queries (profiles, photos,
+ * interests, prompt state) instead of hydrating User entities and their EAGER collections.
+ */
+@Service
+@RequiredArgsConstructor
+public class FeedCardService {
+
+    private final UserRepository userRepository;
+    private final FileStorageService fileStorageService;
+    private final DailyPromptService dailyPromptService;
+
+    /**
+     * Cards in the order of the given ids. Users that were deleted or hidden since the ids
+     * were computed are skipped.
+     */
+    @Transactional(readOnly = true)
+    public List<FeedCard> loadCards(List<Long> orderedIds) {
+        if (orderedIds == null || orderedIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, FeedProfile> profiles = new HashMap<>();
+        for (FeedProfile profile : userRepository.findFeedProfiles(orderedIds)) {
+            profiles.put(profile.id(), profile);
+        }
+        List<Long> userIds = orderedIds.stream().filter(profiles::containsKey).toList();
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<FeedPhoto>> photosByUserId = new HashMap<>();
+        for (FeedPhoto photo : userRepository.findFeedPhotos(userIds)) {
+            photosByUserId.computeIfAbsent(photo.userId(), id -> new ArrayList<>()).add(photo);
+        }
+
+        Map<Long, List<String>> interestsByUserId = new HashMap<>();
+        for (Object[] row : userRepository.findInterestRows(userIds)) {
+            Long userId = ((Number) row[0]).longValue();
+            interestsByUserId.computeIfAbsent(userId, id -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        Map<Long, PromptState> promptStates = dailyPromptService.getPromptStates(userIds);
+
+        // Presign in parallel like the entity-based feed did; each URL is a cache hit after the first view
+        return userIds.parallelStream()
+                .map(userId -> {
+                    FeedProfile profile = profiles.get(userId);
+                    FeedProfile presigned = profile.withMediaUrls(
+                            presign(profile.avatarUrl()),
+                            presign(profile.voiceIntroUrl()));
+                    List<FeedPhoto> photos = photosByUserId.getOrDefault(userId, List.of()).stream()
+                            .map(photo -> photo.withUrl(presign(photo.url())))
+                            .toList();
+                    return new FeedCard(
+                            presigned,
+                            interestsByUserId.getOrDefault(userId, List.of()),
+                            photos,
+                            promptStates.getOrDefault(userId, PromptState.none()));
+                })
+                .toList();
+    }
+
+    private String presign(String key) {
+        return key == null ? null : fileStorageService.generatePresignedUrl(key);
+    }
+}
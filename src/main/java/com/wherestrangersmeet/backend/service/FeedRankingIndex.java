@@ -0,0 +1,427 @@
+package com.wherestrangersmeet.backend.service;
+
+import com.wherestrangersmeet.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory ranking features for every live user, held in primitive arrays so scoring a
+ * page of candidates is a few array reads per candidate instead of SQL joins.
+ *
+ * Interest tags are dictionary-encoded into per-user bitsets; overlap with the viewer is
+ * the popcount of the AND. The index is rebuilt periodically and patched from a dirty set
+ * in between; presence and prompt answers are written straight into the arrays.
+ *
+ * Dirty users already in the index are patched in place; only inserts, removals or a tag
+ * dictionary that outgrows its words force a re-layout. Writes that land while a new layout
+ * is being built are recorded and replayed onto it before it is published.
+ */
+@Service
+public class FeedRankingIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedRankingIndex.class);
+    // last_active is written with LocalDateTime.now(), i.e. server-local time
+    private static final ZoneId SERVER_ZONE = ZoneId.systemDefault();
+    private static final int NO_PROMPT = Integer.MIN_VALUE;
+    private static final long NEVER_ACTIVE = Long.MIN_VALUE;
+
+    private final UserRepository userRepository;
+    private final double interestWeight;
+    private final double recencyWeight;
+    private final double promptWeight;
+    private final double recencyHalfLifeHours;
+
+    private final Set<Long> dirtyUserIds = ConcurrentHashMap.newKeySet();
+    private volatile Index index;
+
+    // Guards array writes, the swap of index and the delta maps below
+    private final Object writeLock = new Object();
+    // Serializes rebuild and refreshDirty, which may run on different scheduler threads
+    private final Object buildLock = new Object();
+    private boolean building;
+    private final Map<Long, Long> lastActiveDeltas = new HashMap<>();
+    private final Map<Long, Integer> promptDayDeltas = new HashMap<>();
+
+    public FeedRankingIndex(
+            UserRepository userRepository,
+            @Value("${app.feed.ranking.interest-weight:0.5}") double interestWeight,
+            @Value("${app.feed.ranking.recency-weight:0.3}") double recencyWeight,
+            @Value("${app.feed.ranking.prompt-weight:0.2}") double promptWeight,
+            @Value("${app.feed.ranking.recency-half-life-hours:24}") double recencyHalfLifeHours) {
+        this.userRepository = userRepository;
+        this.interestWeight = interestWeight;
+        this.recencyWeight = recencyWeight;
+        this.promptWeight = promptWeight;
+        this.recencyHalfLifeHours = recencyHalfLifeHours;
+    }
+
+    /**
+     * Reorder candidates by score against the viewer, best first. Ties keep their incoming
+     * order. Returns the input untouched until the index has been built.
+     */
+    public long[] rank(Long viewerId, long[] candidateIds) {
+        Index current = index;
+        if (current == null || candidateIds.length < 2) {
+            return candidateIds;
+        }
+
+        int viewerPos = current.position(viewerId);
+        int viewerTagCount = viewerPos < 0 ? 0 : current.tagCount(viewerPos);
+        long nowSeconds = Instant.now().getEpochSecond();
+        int today = (int) LocalDate.now(DailyPromptCalendar.APP_ZONE).toEpochDay();
+
+        double[] scores = new double[candidateIds.length];
+        for (int i = 0; i < candidateIds.length; i++) {
+            int pos = current.position(candidateIds[i]);
+            if (pos < 0) {
+                continue;
+            }
+            double interest = viewerTagCount == 0
+                    ? 0
+                    : (double) current.overlap(viewerPos, pos) / viewerTagCount;
+            long lastActive = current.lastActive[pos];
+            double recency = 0;
+            if (lastActive != NEVER_ACTIVE) {
+                double ageHours = Math.max(0, nowSeconds - lastActive) / 3600d;
+                recency = Math.pow(0.5, ageHours / recencyHalfLifeHours);
+            }
+            double prompt = current.promptDay[pos] == today ? 1 : 0;
+            scores[i] = interestWeight * interest + recencyWeight * recency + promptWeight * prompt;
+        }
+
+        Integer[] order = new Integer[candidateIds.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        // Stable sort, so equal scores keep the SQL order (answered today, then newest)
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+
+        long[] ranked = new long[candidateIds.length];
+        for (int i = 0; i < order.length; i++) {
+            ranked[i] = candidateIds[order[i]];
+        }
+        return ranked;
+    }
+
+    /**
+     * Queue a user for reload on the next incremental refresh (profile or interests changed).
+     */
+    public void markDirty(Long userId) {
+        if (userId != null) {
+            dirtyUserIds.add(userId);
+        }
+    }
+
+    public void touchLastActive(Long userId, LocalDateTime lastActive) {
+        long seconds = lastActive.atZone(SERVER_ZONE).toEpochSecond();
+        synchronized (writeLock) {
+            Index current = index;
+            int pos = current == null ? -1 : current.position(userId);
+            if (pos >= 0) {
+                current.lastActive[pos] = seconds;
+            } else {
+                markDirty(userId);
+            }
+            if (building) {
+                lastActiveDeltas.put(userId, seconds);
+            }
+        }
+    }
+
+    public void markPromptAnswered(Long userId, LocalDate activeDate) {
+        int day = (int) activeDate.toEpochDay();
+        synchronized (writeLock) {
+            Index current = index;
+            int pos = current == null ? -1 : current.position(userId);
+            if (pos >= 0) {
+                current.promptDay[pos] = day;
+            } else {
+                markDirty(userId);
+            }
+            if (building) {
+                promptDayDeltas.put(userId, day);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.feed.ranking.rebuild-interval-ms:1800000}",
+            initialDelayString = "${app.feed.ranking.rebuild-interval-ms:1800000}")
+    public void rebuild() {
+        synchronized (buildLock) {
+            try {
+                long start = System.currentTimeMillis();
+                dirtyUserIds.clear();
+                beginBuild();
+                Index built = Index.build(userRepository.findRankingFeatures(), userRepository.findAllInterestRows(),
+                        null, Set.of());
+                publish(built);
+                log.info("Feed ranking index built: {} users, {} tags in {}ms",
+                        built.ids.length, built.tagDictionary.size(), System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                abortBuild();
+                log.warn("⚠️ Failed to build feed ranking index: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.feed.ranking.refresh-interval-ms:30000}")
+    public void refreshDirty() {
+        synchronized (buildLock) {
+            Index current = index;
+            if (current == null || dirtyUserIds.isEmpty()) {
+                return;
+            }
+
+            List<Long> batch = new ArrayList<>(dirtyUserIds);
+            dirtyUserIds.removeAll(batch);
+            try {
+                List<Object[]> featureRows = userRepository.findRankingFeaturesByIds(batch);
+                List<Object[]> interestRows = userRepository.findInterestRows(batch);
+                if (patchInPlace(current, batch, featureRows, interestRows)) {
+                    return;
+                }
+                beginBuild();
+                publish(Index.build(featureRows, interestRows, current, new HashSet<>(batch)));
+            } catch (Exception e) {
+                abortBuild();
+                dirtyUserIds.addAll(batch);
+                log.warn("⚠️ Failed to refresh feed ranking index: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Overwrite the rows of users that are already indexed. Returns false, changing nothing,
+     * when the batch adds or removes users or brings more new tags than the bitsets can hold.
+     */
+    private boolean patchInPlace(Index current, List<Long> batch, List<Object[]> featureRows,
+            List<Object[]> interestRows) {
+        if (featureRows.size() != batch.size()) {
+            return false;
+        }
+        for (Object[] row : featureRows) {
+            if (current.position(((Number) row[0]).longValue()) < 0) {
+                return false;
+            }
+        }
+        Set<String> newTags = new HashSet<>();
+        for (Object[] row : interestRows) {
+            String tag = Index.normalizeTag((String) row[1]);
+            if (!tag.isEmpty() && !current.tagDictionary.containsKey(tag)) {
+                newTags.add(tag);
+            }
+        }
+        if (current.tagDictionary.size() + newTags.size() > current.words * 64) {
+            return false;
+        }
+
+        synchronized (writeLock) {
+            // Only buildLock holders touch the dictionary, and rank() never reads it
+            for (String tag : newTags) {
+                current.tagDictionary.put(tag, current.tagDictionary.size());
+            }
+            Map<Long, List<Integer>> tagsByUser = Index.tagBitsByUser(interestRows, current.tagDictionary);
+            for (Object[] row : featureRows) {
+                long id = ((Number) row[0]).longValue();
+                int pos = current.position(id);
+                current.patchFeatures(pos, row);
+                Arrays.fill(current.tagBits, pos * current.words, (pos + 1) * current.words, 0L);
+                for (int bit : tagsByUser.getOrDefault(id, List.of())) {
+                    current.tagBits[pos * current.words + (bit >>> 6)] |= 1L << (bit & 63);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void beginBuild() {
+        synchronized (writeLock) {
+            building = true;
+        }
+    }
+
+    private void abortBuild() {
+        synchronized (writeLock) {
+            building = false;
+            lastActiveDeltas.clear();
+            promptDayDeltas.clear();
+        }
+    }
+
+    /**
+     * Swap in a new layout, first replaying presence and prompt writes made while it was
+     * built from rows that may predate them.
+     */
+    private void publish(Index built) {
+        synchronized (writeLock) {
+            lastActiveDeltas.forEach((id, seconds) -> {
+                int pos = built.position(id);
+                if (pos >= 0) {
+                    built.lastActive[pos] = Math.max(built.lastActive[pos], seconds);
+                }
+            });
+            promptDayDeltas.forEach((id, day) -> {
+                int pos = built.position(id);
+                if (pos >= 0) {
+                    built.promptDay[pos] = Math.max(built.promptDay[pos], day);
+                }
+            });
+            index = built;
+            building = false;
+            lastActiveDeltas.clear();
+            promptDayDeltas.clear();
+        }
+    }
+
+    /**
+     * Fixed layout (ids, words per user); lastActive, promptDay, tag bits and the dictionary are
+     * patched in place under the index's write lock.
+     */
+    private static final class Index {
+        final long[] ids;
+        final long[] tagBits;
+        final int words;
+        final long[] lastActive;
+        final int[] promptDay;
+        final Map<String, Integer> tagDictionary;
+
+        private Index(long[] ids, long[] tagBits, int words, long[] lastActive, int[] promptDay,
+                Map<String, Integer> tagDictionary) {
+            this.ids = ids;
+            this.tagBits = tagBits;
+            this.words = words;
+            this.lastActive = lastActive;
+            this.promptDay = promptDay;
+            this.tagDictionary = tagDictionary;
+        }
+
+        int position(long id) {
+            return Arrays.binarySearch(ids, id);
+        }
+
+        int tagCount(int pos) {
+            int count = 0;
+            for (int w = 0, base = pos * words; w < words; w++) {
+                count += Long.bitCount(tagBits[base + w]);
+            }
+            return count;
+        }
+
+        int overlap(int a, int b) {
+            int count = 0;
+            int baseA = a * words;
+            int baseB = b * words;
+            for (int w = 0; w < words; w++) {
+                count += Long.bitCount(tagBits[baseA + w] & tagBits[baseB + w]);
+            }
+            return count;
+        }
+
+        /**
+         * Build from feature rows (id, lastActive, lastPromptAnsweredOn) and interest rows (id, tag).
+         * When a previous index is given, its users are carried over except those in replacedIds,
+         * which are taken from the rows instead (or dropped if the rows no longer contain them).
+         */
+        static Index build(List<Object[]> featureRows, List<Object[]> interestRows, Index previous,
+                Set<Long> replacedIds) {
+            Map<String, Integer> dictionary = previous == null
+                    ? new HashMap<>()
+                    : new HashMap<>(previous.tagDictionary);
+
+            Map<Long, List<Integer>> tagsByUser = tagBitsByUser(interestRows, dictionary);
+            int words = Math.max(1, (dictionary.size() + 63) / 64);
+
+            Map<Long, Object[]> featuresById = new HashMap<>();
+            for (Object[] row : featureRows) {
+                featuresById.put(((Number) row[0]).longValue(), row);
+            }
+
+            List<Long> allIds = new ArrayList<>(featuresById.keySet());
+            if (previous != null) {
+                for (long id : previous.ids) {
+                    if (!replacedIds.contains(id)) {
+                        allIds.add(id);
+                    }
+                }
+            }
+            long[] ids = allIds.stream().mapToLong(Long::longValue).distinct().sorted().toArray();
+
+            long[] tagBits = new long[ids.length * words];
+            long[] lastActive = new long[ids.length];
+            int[] promptDay = new int[ids.length];
+            for (int pos = 0; pos < ids.length; pos++) {
+                long id = ids[pos];
+                Object[] features = featuresById.get(id);
+                if (features != null) {
+                    lastActive[pos] = lastActiveSeconds(features);
+                    promptDay[pos] = promptDay(features);
+                    for (int bit : tagsByUser.getOrDefault(id, List.of())) {
+                        tagBits[pos * words + (bit >>> 6)] |= 1L << (bit & 63);
+                    }
+                } else {
+                    int old = previous.position(id);
+                    lastActive[pos] = previous.lastActive[old];
+                    promptDay[pos] = previous.promptDay[old];
+                    System.arraycopy(previous.tagBits, old * previous.words, tagBits, pos * words, previous.words);
+                }
+            }
+            return new Index(ids, tagBits, words, lastActive, promptDay, dictionary);
+        }
+
+        /**
+         * Dictionary bits per user for interest rows (id, tag); unseen tags get the next bit.
+         */
+        static Map<Long, List<Integer>> tagBitsByUser(List<Object[]> interestRows, Map<String, Integer> dictionary) {
+            Map<Long, List<Integer>> tagsByUser = new HashMap<>();
+            for (Object[] row : interestRows) {
+                String tag = normalizeTag((String) row[1]);
+                if (tag.isEmpty()) {
+                    continue;
+                }
+                Integer bit = dictionary.computeIfAbsent(tag, t -> dictionary.size());
+                tagsByUser.computeIfAbsent(((Number) row[0]).longValue(), id -> new ArrayList<>()).add(bit);
+            }
+            return tagsByUser;
+        }
+
+        void patchFeatures(int pos, Object[] features) {
+            // The row may have been read before a presence update written straight into the array
+            lastActive[pos] = Math.max(lastActive[pos], lastActiveSeconds(features));
+            promptDay[pos] = promptDay(features);
+        }
+
+        private static long lastActiveSeconds(Object[] features) {
+            LocalDateTime active = (LocalDateTime) features[1];
+            return active == null ? NEVER_ACTIVE : active.atZone(SERVER_ZONE).toEpochSecond();
+        }
+
+        private static int promptDay(Object[] features) {
+            LocalDate answeredOn = (LocalDate) features[2];
+            return answeredOn == null ? NO_PROMPT : (int) answeredOn.toEpochDay();
+        }
+
+        static String normalizeTag(String tag) {
+            return tag == null ? "" : tag.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.wherestrangersmeet.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wherestrangersmeet.backend.model.StoredFeedSnapshot;
+import com.wherestrangersmeet.backend.repository.StoredFeedSnapshotRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per-viewer discovery feed snapshots: the ordered candidate ids computed when the
+ * first page is requested. Later pages slice this array instead of re-running the
+ * feed query with a growing OFFSET.
+ *
+ * Snapshots are stored in the database so that a later page can land on any node; the
+ * Caffeine cache only saves re-reading the row for every page. Every snapshot gets a new
+ * random version. Clients echo it on later pages so a page is never sliced from a
+ * different ordering than the one they started with.
+ */
+@Service
+public class FeedSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedSnapshotService.class);
+    static final String CACHE_NAME = "feedSnapshots";
+
+    private final StoredFeedSnapshotRepository snapshotRepository;
+    private final CacheManagementService cacheManagementService;
+    private final CacheInvalidationBroadcaster invalidationBroadcaster;
+    private final DailyPromptCalendar dailyPromptCalendar;
+    private final Cache<Long, FeedSnapshot> snapshots;
+    private final int maxCandidates;
+    private final Duration retention;
+
+    public FeedSnapshotService(
+            StoredFeedSnapshotRepository snapshotRepository,
+            CacheManagementService cacheManagementService,
+            CacheInvalidationBroadcaster invalidationBroadcaster,
+            DailyPromptCalendar dailyPromptCalendar,
+            @Value("${app.feed.snapshot.max-candidates:2000}") int maxCandidates,
+            @Value("${app.feed.snapshot.ttl-minutes:15}") long ttlMinutes,
+            @Value("${app.feed.snapshot.retention-hours:24}") long retentionHours) {
+        this.snapshotRepository = snapshotRepository;
+        this.cacheManagementService = cacheManagementService;
+        this.invalidationBroadcaster = invalidationBroadcaster;
+        this.dailyPromptCalendar = dailyPromptCalendar;
+        this.maxCandidates = maxCandidates;
+        this.retention = Duration.ofHours(retentionHours);
+        this.snapshots = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .maximumSize(10000)
+                .recordStats()
+                .build();
+    }
+
+    @PostConstruct
+    void register() {
+        cacheManagementService.register(CACHE_NAME, snapshots);
+        invalidationBroadcaster.track(CACHE_NAME);
+        // A new prompt day changes who counts as "answered today"
+        dailyPromptCalendar.onChange(this::invalidateAll);
+    }
+
+    public int getMaxCandidates() {
+        return maxCandidates;
+    }
+
+    /**
+     * The viewer's current snapshot. A local copy is only trusted while it matches the
+     * requested version (any version when null); otherwise the shared row is read, since
+     * another node may have rebuilt page 0 since.
+     */
+    public Optional<FeedSnapshot> get(Long viewerId, Long version) {
+        FeedSnapshot local = snapshots.getIfPresent(viewerId);
+        if (local != null && (version == null || version == local.version())) {
+            return Optional.of(local);
+        }
+
+        Optional<FeedSnapshot> stored = snapshotRepository.findById(viewerId)
+                .filter(row -> row.getCreatedAt().isAfter(LocalDateTime.now().minus(retention)))
+                .map(row -> new FeedSnapshot(unpack(row.getCandidateIds()), row.isTruncated(), row.getVersion()));
+        stored.ifPresentOrElse(snapshot -> snapshots.put(viewerId, snapshot), () -> snapshots.invalidate(viewerId));
+        return stored;
+    }
+
+    public FeedSnapshot store(Long viewerId, long[] candidateIds) {
+        // A full array means there may be more candidates beyond the cap.
+        boolean truncated = candidateIds.length >= maxCandidates;
+        FeedSnapshot snapshot = new FeedSnapshot(
+                candidateIds, truncated, ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE));
+        snapshotRepository.upsert(viewerId, snapshot.version(), truncated, pack(candidateIds), LocalDateTime.now());
+        snapshots.put(viewerId, snapshot);
+        // Peers holding the previous ordering drop it and read the new row on their next page
+        invalidationBroadcaster.publish(CACHE_NAME, viewerId);
+        return snapshot;
+    }
+
+    /**
+     * Drop the snapshots of both sides of a block/unblock, since each disappears from
+     * (or returns to) the other's feed.
+     */
+    public void invalidate(Long... viewerIds) {
+        List<Long> ids = Arrays.stream(viewerIds).filter(Objects::nonNull).toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        snapshotRepository.deleteAllByIdInBatch(ids);
+        for (Long viewerId : ids) {
+            snapshots.invalidate(viewerId);
+            invalidationBroadcaster.publish(CACHE_NAME, viewerId);
+        }
+    }
+
+    /**
+     * Drop every snapshot. Used when a change moves a user in everyone's feed
+     * (prompt answer, profile unhidden, prompt day rollover).
+     */
+    public void invalidateAll() {
+        snapshotRepository.deleteAllInBatch();
+        snapshots.invalidateAll();
+        invalidationBroadcaster.publishClear(CACHE_NAME);
+        log.debug("Feed snapshots cleared");
+    }
+
+    @Scheduled(fixedDelayString = "${app.feed.snapshot.purge-interval-ms:3600000}",
+            initialDelayString = "${app.feed.snapshot.purge-interval-ms:3600000}")
+    void purgeExpired() {
+        int purged = snapshotRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+        if (purged > 0) {
+            log.debug("Purged {} expired feed snapshots", purged);
+        }
+    }
+
+    static byte[] pack(long[] ids) {
+        ByteBuffer buffer = ByteBuffer.allocate(ids.length * Long.BYTES);
+        buffer.asLongBuffer().put(ids);
+        return buffer.array();
+    }
+
+    static long[] unpack(byte[] packed) {
+        long[] ids = new long[packed.length / Long.BYTES];
+        ByteBuffer.wrap(packed).asLongBuffer().get(ids);
+        return ids;
+    }
+
+    public record FeedSnapshot(long[] candidateIds, boolean truncated, long version) {
+
+        public int size() {
+            return candidateIds.length;
+        }
+
+        public long[] slice(int offset, int limit) {
+            if (offset >= candidateIds.length) {
+                return new long[0];
+            }
+            return Arrays.copyOfRange(candidateIds, offset, Math.min(candidateIds.length, offset + limit));
+        }
+    }
+}
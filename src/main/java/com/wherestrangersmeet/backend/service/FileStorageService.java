@@ -108,7 +108,7 @@ public class FileStorageService {
         return s3Client.getObject(getObjectRequest);
     }
 
-    @Cacheable(value = "presignedUrls", key = "#key")
+    @Cacheable(value = "presignedUrls", key = "#key", sync = true)
     public String generatePresignedUrl(String key) {
         if (key == null) {
             return null;
@@ -0,0 +1,143 @@
+package com.wherestrangersmeet.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wherestrangersmeet.backend.model.User;
+import com.wherestrangersmeet.backend.model.UserPhoto;
+import com.wherestrangersmeet.backend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cached, already-presigned JSON body for GET /api/users/me, keyed by Firebase UID.
+ *
+ * The body is built once from the entity with every media key presigned in one pass,
+ * then reused until the user is saved (UserCache invalidation) or the TTL runs out.
+ * The TTL stays well inside the presigned URL lifetime. Prompt state is not part of the
+ * entry; the controller merges it from DailyPromptService's own cache per request.
+ */
+@Service
+public class MeProfileService {
+
+    static final String CACHE_NAME = "meProfiles";
+
+    private final UserRepository userRepository;
+    private final FileStorageService fileStorageService;
+    private final ObjectMapper objectMapper;
+    private final CacheManagementService cacheManagementService;
+    private final CacheInvalidationBroadcaster invalidationBroadcaster;
+    private final Cache<String, MeProfile> profiles;
+
+    public MeProfileService(
+            UserRepository userRepository,
+            FileStorageService fileStorageService,
+            ObjectMapper objectMapper,
+            CacheManagementService cacheManagementService,
+            CacheInvalidationBroadcaster invalidationBroadcaster,
+            @Value("${app.me.cache-ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.fileStorageService = fileStorageService;
+        this.objectMapper = objectMapper;
+        this.cacheManagementService = cacheManagementService;
+        this.invalidationBroadcaster = invalidationBroadcaster;
+        this.profiles = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(10000)
+                .recordStats()
+                .build();
+    }
+
+    @PostConstruct
+    void register() {
+        cacheManagementService.register(CACHE_NAME, profiles);
+        invalidationBroadcaster.track(CACHE_NAME);
+    }
+
+    /**
+     * The cached profile of an existing user, or empty if there is no user for this UID yet.
+     */
+    public Optional<MeProfile> find(String firebaseUid) {
+        return Optional.ofNullable(profiles.get(firebaseUid, this::load));
+    }
+
+    public void invalidate(String firebaseUid) {
+        if (firebaseUid == null) {
+            return;
+        }
+        CacheEvictions.evictNowAndAfterCommit(() -> profiles.invalidate(firebaseUid));
+        invalidationBroadcaster.publish(CACHE_NAME, firebaseUid);
+    }
+
+    public void invalidateAll() {
+        profiles.invalidateAll();
+        invalidationBroadcaster.publishClear(CACHE_NAME);
+    }
+
+    private MeProfile load(String firebaseUid) {
+        return userRepository.findByFirebaseUid(firebaseUid)
+                .map(this::toProfile)
+                .orElse(null);
+    }
+
+    private MeProfile toProfile(User user) {
+        Set<String> keys = new LinkedHashSet<>();
+        addKey(keys, user.getAvatarUrl());
+        addKey(keys, user.getVoiceIntroUrl());
+        user.getPhotos().forEach(photo -> addKey(keys, photo.getUrl()));
+        user.getStickerKeys().forEach(key -> addKey(keys, key));
+
+        // Distinct keys, presigned in parallel; the proxy call keeps the presignedUrls cache in play
+        Map<String, String> presigned = new ConcurrentHashMap<>();
+        keys.parallelStream().forEach(key -> {
+            String url = fileStorageService.generatePresignedUrl(key);
+            if (url != null) {
+                presigned.put(key, url);
+            }
+        });
+
+        // Rewrite URLs in the JSON tree so the (possibly managed) entity is never modified
+        ObjectNode body = objectMapper.valueToTree(user);
+        replaceUrl(body, "avatarUrl", user.getAvatarUrl(), presigned);
+        replaceUrl(body, "voiceIntroUrl", user.getVoiceIntroUrl(), presigned);
+        if (body.get("photos") instanceof ArrayNode photos) {
+            for (int i = 0; i < photos.size() && i < user.getPhotos().size(); i++) {
+                UserPhoto photo = user.getPhotos().get(i);
+                replaceUrl((ObjectNode) photos.get(i), "url", photo.getUrl(), presigned);
+            }
+        }
+        if (body.get("stickerKeys") instanceof ArrayNode stickers) {
+            stickers.removeAll();
+            user.getStickerKeys().forEach(key -> stickers.add(presigned.getOrDefault(key, key)));
+        }
+        return new MeProfile(user.getId(), body);
+    }
+
+    private static void addKey(Set<String> keys, String key) {
+        if (key != null) {
+            keys.add(key);
+        }
+    }
+
+    private static void replaceUrl(ObjectNode node, String field, String key, Map<String, String> presigned) {
+        if (key != null && presigned.containsKey(key)) {
+            node.put(field, presigned.get(key));
+        }
+    }
+
+    /**
+     * The serialized user with presigned media URLs. Treat body as read-only; copy before editing.
+     */
+    public record MeProfile(Long userId, ObjectNode body) {
+    }
+}
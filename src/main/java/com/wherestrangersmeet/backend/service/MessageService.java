@@ -26,6 +26,7 @@ public class MessageService {
     private final SelfieExchangeRepository selfieExchangeRepository;
     private final UserReportRepository userReportRepository;
     private final TextModerationService textModerationService;
+    private final ConversationSummaryService conversationSummaryService;
     // Note: NotificationService logic moved to AsyncMessageProcessor
 
     // ORCHESTRATOR: Not Transactional (to avoid long-running DB connections)
@@ -242,7 +243,9 @@ public class MessageService {
         }
 
         message.setIsDeleted(true);
-        messageRepository.save(message);
+        // Flush before touching summaries: the row lock orders this delete against a summary refresh
+        messageRepository.saveAndFlush(message);
+        conversationSummaryService.onMessageDeleted(message);
     }
 
     private Long extractSelfieExchangeId(String text) {
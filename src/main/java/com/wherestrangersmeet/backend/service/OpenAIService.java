@@ -1,43 +1,57 @@
 package com.wherestrangersmeet.backend.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wherestrangersmeet.backend.config.OpenAiHttpClients;
+import com.wherestrangersmeet.backend.model.StagedUpload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.regex.Pattern;
 
 @Service
 public class OpenAIService {
 
     private static final Logger log = LoggerFactory.getLogger(OpenAIService.class);
+    private static final String CHAT_COMPLETIONS_URL = "https://api.openai.com/v1/chat/completions";
+    private static final Pattern SAFE_IMAGE_MIME = Pattern.compile("image/[A-Za-z0-9.+-]+");
+    private static final String PROFILE_PHOTO_PROMPT = "Analyze these images. The first image is the NEW photo. The subsequent images are reference photos of the SAME person.\n"
+            +
+            "1. Does the NEW photo clearly show a human face?\n" +
+            "2. Does the person in the NEW photo look like the same person in the reference photos (if provided)?\n"
+            +
+            "Return ONLY a JSON object: { \"faceVisible\": boolean, \"samePerson\": boolean, \"valid\": boolean, \"message\": string }.\n"
+            +
+            "If no reference photos are provided, 'samePerson' should be true (or ignored). 'valid' should be true only if faceVisible is true and samePerson is true (if references exist).";
 
     @Value("${openai.api.key}")
     private String apiKey;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final OpenAiHttpClients httpClients;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public Map<String, Object> verifyPhotos(MultipartFile photo1, MultipartFile photo2) throws IOException {
-        log.info("OpenAIService.verifyPhotos called.");
-        if (apiKey == null || apiKey.isEmpty()) {
-            log.error("ERROR: OpenAI API Key is missing or empty!");
-            throw new RuntimeException("OpenAI API Key is not configured.");
-        } else {
-            log.info("OpenAI API Key present (length: " + apiKey.length() + ")");
-        }
+    public OpenAIService(OpenAiHttpClients httpClients) {
+        this.httpClients = httpClients;
+    }
 
-        // Check image sizes
-        long size1 = photo1.getSize();
-        long size2 = photo2.getSize();
+    /**
+     * Rejects pairs the vision API cannot take before anything is staged or queued.
+     * Returns the error result, or null when both sizes are acceptable.
+     */
+    public Map<String, Object> photoSizeError(long size1, long size2) {
         log.info("Image sizes: photo1=" + size1 + " bytes, photo2=" + size2 + " bytes");
 
         // OpenAI limit is 20MB for vision API, but base64 adds ~33% overhead
@@ -50,56 +64,34 @@ public class OpenAIService {
             error.put("message", "Images too large. Please use photos under 10MB.");
             return error;
         }
+        return null;
+    }
 
-        // Retry up to 3 times
-        final int MAX_RETRIES = 3;
-        Map<String, Object> lastError = null;
-
-        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-            log.info("Attempt " + attempt + " of " + MAX_RETRIES);
-
-            try {
-                Map<String, Object> result = verifyPhotosInternal(photo1, photo2);
-
-                // If successful, return immediately
-                if (result != null && Boolean.TRUE.equals(result.get("valid"))) {
-                    log.info("Verification successful on attempt {}", attempt);
-                    return result;
-                }
-
-                // If validation failed (not a technical error), return immediately
-                // Example: "faces not visible" or "not same person"
-                if (result != null && result.containsKey("facesVisible")) {
-                    log.info("Verification completed on attempt {} (validation result: {})", attempt,
-                            result.get("valid"));
-                    return result;
-                }
-
-                // Technical error - store and retry
-                lastError = result;
-                log.warn("Technical error on attempt {}, will retry", attempt);
-
-            } catch (Exception e) {
-                log.warn("Exception on attempt {}: {}", attempt, e.getMessage());
-                lastError = new HashMap<>();
-                lastError.put("valid", false);
-                lastError.put("message", e.getMessage());
-            }
-
-            // Wait before retrying (exponential backoff: 1s, 2s, 4s)
-            if (attempt < MAX_RETRIES) {
-                try {
-                    long waitTime = (long) Math.pow(2, attempt - 1) * 1000; // 1s, 2s, 4s
-                    log.info("Waiting {}ms before retry", waitTime);
-                    Thread.sleep(waitTime);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                }
-            }
+    /**
+     * One attempt at the two-photo check. Retries are the caller's job (see VerificationJobService);
+     * use {@link #isConclusive} to tell a real verdict from a technical error worth retrying.
+     */
+    public Map<String, Object> verifyPhotosOnce(StagedUpload photo1, StagedUpload photo2) throws IOException {
+        if (apiKey == null || apiKey.isEmpty()) {
+            log.error("ERROR: OpenAI API Key is missing or empty!");
+            throw new RuntimeException("OpenAI API Key is not configured.");
         }
+        return verifyPhotosInternal(photo1, photo2);
+    }
 
-        // All retries failed - return user-friendly error
-        log.error("All {} attempts failed for photo verification", MAX_RETRIES);
+    /**
+     * True for a success or a validation verdict ("faces not visible", "not same person");
+     * false for technical errors, which are worth another attempt.
+     */
+    public static boolean isConclusive(Map<String, Object> result) {
+        return result != null
+                && (Boolean.TRUE.equals(result.get("valid")) || result.containsKey("facesVisible"));
+    }
+
+    /**
+     * What the user sees once every attempt ended in a technical error.
+     */
+    public Map<String, Object> retriesExhaustedResult() {
         Map<String, Object> userFriendlyError = new HashMap<>();
         userFriendlyError.put("valid", false);
         userFriendlyError.put("message",
@@ -108,77 +100,25 @@ public class OpenAIService {
     }
 
     /**
-     * Internal method that performs the actual verification (called by retry logic)
+     * Internal method that performs the actual verification (called once per job attempt)
      */
-    private Map<String, Object> verifyPhotosInternal(MultipartFile photo1, MultipartFile photo2) throws IOException {
-
-        String base64Image1 = Base64.getEncoder().encodeToString(photo1.getBytes());
-        String base64Image2 = Base64.getEncoder().encodeToString(photo2.getBytes());
-
-        log.info("Base64 lengths: photo1=" + base64Image1.length() + ", photo2=" + base64Image2.length());
+    private Map<String, Object> verifyPhotosInternal(StagedUpload photo1, StagedUpload photo2) throws IOException {
 
         // Detect MIME types
-        String mimeType1 = photo1.getContentType() != null ? photo1.getContentType() : "image/jpeg";
-        String mimeType2 = photo2.getContentType() != null ? photo2.getContentType() : "image/jpeg";
+        String mimeType1 = imageMimeType(photo1.contentType());
+        String mimeType2 = imageMimeType(photo2.contentType());
         log.info("MIME types: photo1=" + mimeType1 + ", photo2=" + mimeType2);
 
-        String url = "https://api.openai.com/v1/chat/completions";
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("Authorization", "Bearer " + apiKey);
+        String prompt = "Analyze these two images. 1. Do both images clearly show a human face? 2. Do both images appear to be of the same person? Return ONLY a JSON object: { \"facesVisible\": boolean, \"samePerson\": boolean, \"valid\": boolean, \"message\": string }";
 
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("model", "gpt-4o");
-
-        List<Map<String, Object>> messages = new ArrayList<>();
-        Map<String, Object> userMessage = new HashMap<>();
-        userMessage.put("role", "user");
-
-        List<Map<String, Object>> content = new ArrayList<>();
-
-        // Text Prompt
-        Map<String, Object> textContent = new HashMap<>();
-        textContent.put("type", "text");
-        textContent.put("text",
-                "Analyze these two images. 1. Do both images clearly show a human face? 2. Do both images appear to be of the same person? Return ONLY a JSON object: { \"facesVisible\": boolean, \"samePerson\": boolean, \"valid\": boolean, \"message\": string }");
-        content.add(textContent);
-
-        // Image 1
-        Map<String, Object> image1Content = new HashMap<>();
-        image1Content.put("type", "image_url");
-        Map<String, String> imageUrl1 = new HashMap<>();
-        imageUrl1.put("url", "data:" + mimeType1 + ";base64," + base64Image1);
-        image1Content.put("image_url", imageUrl1);
-        content.add(image1Content);
-
-        // Image 2
-        Map<String, Object> image2Content = new HashMap<>();
-        image2Content.put("type", "image_url");
-        Map<String, String> imageUrl2 = new HashMap<>();
-        imageUrl2.put("url", "data:" + mimeType2 + ";base64," + base64Image2);
-        image2Content.put("image_url", imageUrl2);
-        content.add(image2Content);
-
-        userMessage.put("content", content);
-        messages.add(userMessage);
-        payload.put("messages", messages);
-        payload.put("max_tokens", 300);
-
-        // Enforce JSON mode
-        Map<String, String> format = new HashMap<>();
-        format.put("type", "json_object");
-        payload.put("response_format", format);
-
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(payload, headers);
-
-        try {
+        try (InputStream image1 = Files.newInputStream(photo1.path());
+                InputStream image2 = Files.newInputStream(photo2.path())) {
             log.info("Sending request to OpenAI...");
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
-            log.info("OpenAI Status: " + response.getStatusCode());
-            log.info("OpenAI Response Body: " + response.getBody());
+            String responseBody = postVisionRequest(prompt,
+                    List.of(ImagePart.dataUrl(mimeType1, image1), ImagePart.dataUrl(mimeType2, image2)));
+            log.info("OpenAI Response Body: " + responseBody);
 
-            return parseVerificationResult(response.getBody(), "photo verification");
+            return parseVerificationResult(responseBody, "photo verification");
         } catch (org.springframework.web.client.HttpClientErrorException e) {
             // HTTP 4xx errors (bad request, unauthorized, rate limit, etc.)
             log.error("OpenAI HTTP Client Error: " + e.getStatusCode());
@@ -210,73 +150,17 @@ public class OpenAIService {
             throw new RuntimeException("OpenAI API Key is not configured.");
         }
 
-        String url = "https://api.openai.com/v1/chat/completions";
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("Authorization", "Bearer " + apiKey);
-
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("model", "gpt-4o");
-
-        List<Map<String, Object>> messages = new ArrayList<>();
-        Map<String, Object> userMessage = new HashMap<>();
-        userMessage.put("role", "user");
-
-        List<Map<String, Object>> content = new ArrayList<>();
-
-        // Text Prompt
-        Map<String, Object> textContent = new HashMap<>();
-        textContent.put("type", "text");
-        String prompt = "Analyze these images. The first image is the NEW photo. The subsequent images are reference photos of the SAME person.\n"
-                +
-                "1. Does the NEW photo clearly show a human face?\n" +
-                "2. Does the person in the NEW photo look like the same person in the reference photos (if provided)?\n"
-                +
-                "Return ONLY a JSON object: { \"faceVisible\": boolean, \"samePerson\": boolean, \"valid\": boolean, \"message\": string }.\n"
-                +
-                "If no reference photos are provided, 'samePerson' should be true (or ignored). 'valid' should be true only if faceVisible is true and samePerson is true (if references exist).";
-        textContent.put("text", prompt);
-        content.add(textContent);
-
-        // New Photo
-        Map<String, Object> newPhotoContent = new HashMap<>();
-        newPhotoContent.put("type", "image_url");
-        Map<String, String> newPhotoUrlMap = new HashMap<>();
-        newPhotoUrlMap.put("url", newPhotoUrl);
-        newPhotoContent.put("image_url", newPhotoUrlMap);
-        content.add(newPhotoContent);
-
-        // Reference Photos
+        List<ImagePart> images = new ArrayList<>();
+        images.add(ImagePart.url(newPhotoUrl));
         if (referencePhotoUrls != null) {
-            for (String refUrl : referencePhotoUrls) {
-                Map<String, Object> refPhotoContent = new HashMap<>();
-                refPhotoContent.put("type", "image_url");
-                Map<String, String> refPhotoUrlMap = new HashMap<>();
-                refPhotoUrlMap.put("url", refUrl);
-                refPhotoContent.put("image_url", refPhotoUrlMap);
-                content.add(refPhotoContent);
-            }
+            referencePhotoUrls.forEach(refUrl -> images.add(ImagePart.url(refUrl)));
         }
 
-        userMessage.put("content", content);
-        messages.add(userMessage);
-        payload.put("messages", messages);
-        payload.put("max_tokens", 300);
-
-        // Enforce JSON mode
-        Map<String, String> format = new HashMap<>();
-        format.put("type", "json_object");
-        payload.put("response_format", format);
-
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(payload, headers);
-
         try {
             log.info("Sending verification request to OpenAI...");
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
-            log.info("OpenAI Status: " + response.getStatusCode());
+            String responseBody = postVisionRequest(PROFILE_PHOTO_PROMPT, images);
 
-            return parseVerificationResult(response.getBody(), "photo URL verification");
+            return parseVerificationResult(responseBody, "photo URL verification");
         } catch (org.springframework.web.client.HttpClientErrorException e) {
             log.error("OpenAI HTTP Client Error: " + e.getStatusCode());
             log.error("Response Body: " + e.getResponseBodyAsString());
@@ -345,81 +229,28 @@ public class OpenAIService {
         return trimmed;
     }
 
-    public Map<String, Object> verifyPhotoBase64(String base64NewPhoto, String mimeType,
+    /**
+     * Same check as verifyPhotoUrl, for when the new photo has no fetchable URL: the image is
+     * Base64-encoded into the request as it is read from the stream. The caller closes it.
+     */
+    public Map<String, Object> verifyPhotoStream(InputStream newPhoto, String mimeType,
             List<String> referencePhotoUrls) {
-        log.info("OpenAIService.verifyPhotoBase64 called.");
+        log.info("OpenAIService.verifyPhotoStream called.");
         if (apiKey == null || apiKey.isEmpty()) {
             throw new RuntimeException("OpenAI API Key is not configured.");
         }
 
-        String url = "https://api.openai.com/v1/chat/completions";
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("Authorization", "Bearer " + apiKey);
-
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("model", "gpt-4o");
-
-        List<Map<String, Object>> messages = new ArrayList<>();
-        Map<String, Object> userMessage = new HashMap<>();
-        userMessage.put("role", "user");
-
-        List<Map<String, Object>> content = new ArrayList<>();
-
-        // Text Prompt
-        Map<String, Object> textContent = new HashMap<>();
-        textContent.put("type", "text");
-        String prompt = "Analyze these images. The first image is the NEW photo. The subsequent images are reference photos of the SAME person.\n"
-                +
-                "1. Does the NEW photo clearly show a human face?\n" +
-                "2. Does the person in the NEW photo look like the same person in the reference photos (if provided)?\n"
-                +
-                "Return ONLY a JSON object: { \"faceVisible\": boolean, \"samePerson\": boolean, \"valid\": boolean, \"message\": string }.\n"
-                +
-                "If no reference photos are provided, 'samePerson' should be true (or ignored). 'valid' should be true only if faceVisible is true and samePerson is true (if references exist).";
-        textContent.put("text", prompt);
-        content.add(textContent);
-
-        // New Photo (Base64)
-        Map<String, Object> newPhotoContent = new HashMap<>();
-        newPhotoContent.put("type", "image_url");
-        Map<String, String> newPhotoUrlMap = new HashMap<>();
-        newPhotoUrlMap.put("url", "data:" + mimeType + ";base64," + base64NewPhoto);
-        newPhotoContent.put("image_url", newPhotoUrlMap);
-        content.add(newPhotoContent);
-
-        // Reference Photos
+        List<ImagePart> images = new ArrayList<>();
+        images.add(ImagePart.dataUrl(imageMimeType(mimeType), newPhoto));
         if (referencePhotoUrls != null) {
-            for (String refUrl : referencePhotoUrls) {
-                Map<String, Object> refPhotoContent = new HashMap<>();
-                refPhotoContent.put("type", "image_url");
-                Map<String, String> refPhotoUrlMap = new HashMap<>();
-                // Check if refUrl is already a data URI or a regular URL
-                refPhotoUrlMap.put("url", refUrl);
-                refPhotoContent.put("image_url", refPhotoUrlMap);
-                content.add(refPhotoContent);
-            }
+            referencePhotoUrls.forEach(refUrl -> images.add(ImagePart.url(refUrl)));
         }
 
-        userMessage.put("content", content);
-        messages.add(userMessage);
-        payload.put("messages", messages);
-        payload.put("max_tokens", 300);
-
-        // Enforce JSON mode
-        Map<String, String> format = new HashMap<>();
-        format.put("type", "json_object");
-        payload.put("response_format", format);
-
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(payload, headers);
-
         try {
             log.info("Sending verification request to OpenAI (Base64 Mode)...");
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
-            log.info("OpenAI Keep-Alive Response: " + response.getStatusCode()); // Logging status
+            String responseBody = postVisionRequest(PROFILE_PHOTO_PROMPT, images);
 
-            return parseVerificationResult(response.getBody(), "base64 photo verification");
+            return parseVerificationResult(responseBody, "base64 photo verification");
         } catch (Exception e) {
             log.error("Error verifying photo (Base64): {}", e.getMessage(), e);
             Map<String, Object> error = new HashMap<>();
@@ -429,6 +260,99 @@ public class OpenAIService {
         }
     }
 
+    /**
+     * POSTs a gpt-4o vision request in JSON mode and returns the response body. The JSON is
+     * generated straight onto the connection, so images are never held as Strings or maps.
+     */
+    private String postVisionRequest(String prompt, List<ImagePart> images) {
+        return httpClients.vision().execute(CHAT_COMPLETIONS_URL, HttpMethod.POST, request -> {
+            request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            request.getHeaders().set("Authorization", "Bearer " + apiKey);
+            if (request instanceof StreamingHttpOutputMessage streaming) {
+                streaming.setBody(out -> writeVisionRequest(out, prompt, images));
+            } else {
+                writeVisionRequest(request.getBody(), prompt, images);
+            }
+        }, response -> {
+            log.info("OpenAI Status: " + response.getStatusCode());
+            return StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8);
+        });
+    }
+
+    private void writeVisionRequest(OutputStream out, String prompt, List<ImagePart> images) throws IOException {
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(StreamUtils.nonClosing(out))) {
+            gen.writeStartObject();
+            gen.writeStringField("model", "gpt-4o");
+            gen.writeArrayFieldStart("messages");
+            gen.writeStartObject();
+            gen.writeStringField("role", "user");
+            gen.writeArrayFieldStart("content");
+
+            // Text Prompt
+            gen.writeStartObject();
+            gen.writeStringField("type", "text");
+            gen.writeStringField("text", prompt);
+            gen.writeEndObject();
+
+            for (ImagePart image : images) {
+                gen.writeStartObject();
+                gen.writeStringField("type", "image_url");
+                gen.writeObjectFieldStart("image_url");
+                gen.writeFieldName("url");
+                image.writeUrl(gen);
+                gen.writeEndObject();
+                gen.writeEndObject();
+            }
+
+            gen.writeEndArray();
+            gen.writeEndObject();
+            gen.writeEndArray();
+            gen.writeNumberField("max_tokens", 300);
+
+            // Enforce JSON mode
+            gen.writeObjectFieldStart("response_format");
+            gen.writeStringField("type", "json_object");
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+    }
+
+    private static String imageMimeType(String contentType) {
+        // Written unescaped into the data URL, so anything unusual falls back to JPEG
+        return contentType != null && SAFE_IMAGE_MIME.matcher(contentType).matches() ? contentType : "image/jpeg";
+    }
+
+    /**
+     * The "url" value of an image_url content part.
+     */
+    @FunctionalInterface
+    private interface ImagePart {
+
+        void writeUrl(JsonGenerator gen) throws IOException;
+
+        static ImagePart url(String url) {
+            return gen -> gen.writeString(url);
+        }
+
+        /**
+         * A data URL whose Base64 payload is encoded on the fly: the encoder wraps the
+         * generator's output stream and the image is copied through it, so only a copy
+         * buffer of the image is ever on the heap.
+         */
+        static ImagePart dataUrl(String mimeType, InputStream image) {
+            return gen -> {
+                // Opens the string value; Base64 and the safe MIME type need no escaping
+                gen.writeRawValue("\"data:" + mimeType + ";base64,");
+                gen.flush();
+                OutputStream target = (OutputStream) gen.getOutputTarget();
+                try (OutputStream base64 = Base64.getEncoder().wrap(StreamUtils.nonClosing(target))) {
+                    image.transferTo(base64);
+                }
+                gen.writeRaw('"');
+            };
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private Map<String, Object> parseVerificationResult(String responseBody, String context) {
         try {
@@ -489,32 +413,44 @@ public class OpenAIService {
             throw new RuntimeException("OpenAI API Key is not configured.");
         }
 
+        // Sent as file resources, so the multipart body is streamed from disk rather than held in memory
+        Path inputPath = Files.createTempFile("wsm-voice-in-", ".m4a");
+        Path cleanedPath = null;
+        try {
+            audioFile.transferTo(inputPath);
+            Path uploadPath = inputPath;
+            String uploadFilename = resolveAudioFilename(audioFile);
+
+            try {
+                cleanedPath = preprocessAudioForWhisper(inputPath);
+                uploadPath = cleanedPath;
+                uploadFilename = "audio-cleaned.wav";
+                log.info("Audio preprocessed for Whisper ({} bytes, file={})", Files.size(uploadPath), uploadFilename);
+            } catch (Exception e) {
+                // Safe fallback: continue with original audio if ffmpeg is unavailable or processing fails.
+                log.warn("Audio preprocessing skipped, falling back to raw input: {}", e.getMessage());
+            }
+
+            return transcribeFile(uploadPath, uploadFilename);
+        } finally {
+            safeDelete(inputPath);
+            safeDelete(cleanedPath);
+        }
+    }
+
+    private String transcribeFile(Path audioPath, String uploadFilename) {
         String url = "https://api.openai.com/v1/audio/transcriptions";
 
         HttpHeaders headers = new HttpHeaders();
         headers.set("Authorization", "Bearer " + apiKey);
         headers.setContentType(MediaType.MULTIPART_FORM_DATA);
 
-        byte[] uploadBytes = audioFile.getBytes();
-        String uploadFilename = resolveAudioFilename(audioFile);
-
-        try {
-            PreprocessedAudio preprocessed = preprocessAudioForWhisper(audioFile);
-            uploadBytes = preprocessed.bytes();
-            uploadFilename = preprocessed.filename();
-            log.info("Audio preprocessed for Whisper ({} bytes, file={})", uploadBytes.length, uploadFilename);
-        } catch (Exception e) {
-            // Safe fallback: continue with original audio if ffmpeg is unavailable or processing fails.
-            log.warn("Audio preprocessing skipped, falling back to raw input: {}", e.getMessage());
-        }
-
         org.springframework.util.MultiValueMap<String, Object> body = new org.springframework.util.LinkedMultiValueMap<>();
-        final String finalUploadFilename = uploadFilename;
-        body.add("file", new org.springframework.core.io.ByteArrayResource(uploadBytes) {
+        body.add("file", new org.springframework.core.io.FileSystemResource(audioPath) {
             @Override
             public String getFilename() {
                 // OpenAI requires a filename with extension
-                return finalUploadFilename;
+                return uploadFilename;
             }
         });
         body.add("model", "whisper-1");
@@ -524,7 +460,7 @@ public class OpenAIService {
 
         try {
             log.info("Sending audio to Whisper...");
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
+            ResponseEntity<String> response = httpClients.transcription().exchange(url, HttpMethod.POST, entity, String.class);
             log.info("Whisper Status: " + response.getStatusCode());
 
             JsonNode root = objectMapper.readTree(response.getBody());
@@ -542,22 +478,19 @@ public class OpenAIService {
         }
     }
 
-    private record PreprocessedAudio(byte[] bytes, String filename) {
-    }
-
     private String resolveAudioFilename(MultipartFile audioFile) {
         String original = audioFile.getOriginalFilename();
         return (original != null && !original.isBlank()) ? original : "audio.m4a";
     }
 
-    private PreprocessedAudio preprocessAudioForWhisper(MultipartFile audioFile) throws IOException, InterruptedException {
-        Path inputPath = null;
-        Path outputPath = null;
+    /**
+     * Cleans up the recording with ffmpeg and returns the path of a 16 kHz mono WAV, which the
+     * caller deletes. Throws if ffmpeg is missing or fails.
+     */
+    private Path preprocessAudioForWhisper(Path inputPath) throws IOException, InterruptedException {
+        Path outputPath = Files.createTempFile("wsm-voice-out-", ".wav");
+        boolean succeeded = false;
         try {
-            inputPath = Files.createTempFile("wsm-voice-in-", ".m4a");
-            outputPath = Files.createTempFile("wsm-voice-out-", ".wav");
-            audioFile.transferTo(inputPath.toFile());
-
             List<String> command = Arrays.asList(
                     "ffmpeg",
                     "-y",
@@ -579,15 +512,16 @@ public class OpenAIService {
                 throw new IOException("ffmpeg failed with exit code " + exitCode + ": " + ffmpegOutput);
             }
 
-            byte[] cleanedBytes = Files.readAllBytes(outputPath);
-            if (cleanedBytes.length == 0) {
+            if (Files.size(outputPath) == 0) {
                 throw new IOException("ffmpeg produced empty audio output");
             }
 
-            return new PreprocessedAudio(cleanedBytes, "audio-cleaned.wav");
+            succeeded = true;
+            return outputPath;
         } finally {
-            safeDelete(inputPath);
-            safeDelete(outputPath);
+            if (!succeeded) {
+                safeDelete(outputPath);
+            }
         }
     }
 
@@ -0,0 +1,138 @@
+package com.wherestrangersmeet.backend.service;
+
+import com.wherestrangersmeet.backend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assigns public ids to legacy users that predate the column, so reads never have to
+ * write one on the fly.
+ *
+ * Works in id-ordered chunks with a pause between them and a cap per run. Progress is
+ * the set of rows still missing an id, so a restart simply picks up where the last run
+ * stopped. Once a full pass finds nothing, the job stays idle.
+ *
+ * Runs on its own thread rather than the shared @Scheduled pool, since the pauses
+ * between chunks would otherwise hold up the invalidation flush and the other jobs.
+ */
+@Service
+public class PublicIdBackfillJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PublicIdBackfillJob.class);
+
+    private final UserRepository userRepository;
+    private final PublicIdPool publicIdPool;
+    private final UserCache userCache;
+    private final int chunkSize;
+    private final int chunksPerRun;
+    private final long pauseMs;
+    private final long initialDelayMs;
+    private final long intervalMs;
+    private final ScheduledExecutorService executor;
+
+    private long cursor;
+    private volatile boolean complete;
+
+    public PublicIdBackfillJob(
+            UserRepository userRepository,
+            PublicIdPool publicIdPool,
+            UserCache userCache,
+            @Value("${app.public-id.backfill.chunk-size:200}") int chunkSize,
+            @Value("${app.public-id.backfill.chunks-per-run:10}") int chunksPerRun,
+            @Value("${app.public-id.backfill.pause-ms:250}") long pauseMs,
+            @Value("${app.public-id.backfill.initial-delay-ms:30000}") long initialDelayMs,
+            @Value("${app.public-id.backfill.interval-ms:60000}") long intervalMs) {
+        this.userRepository = userRepository;
+        this.publicIdPool = publicIdPool;
+        this.userCache = userCache;
+        this.chunkSize = chunkSize;
+        this.chunksPerRun = chunksPerRun;
+        this.pauseMs = pauseMs;
+        this.initialDelayMs = initialDelayMs;
+        this.intervalMs = intervalMs;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "public-id-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    void start() {
+        executor.scheduleWithFixedDelay(this::run, initialDelayMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public synchronized void run() {
+        if (complete) {
+            return;
+        }
+
+        int assigned = 0;
+        try {
+            for (int chunk = 0; chunk < chunksPerRun; chunk++) {
+                List<Object[]> rows = userRepository.findIdsMissingPublicId(cursor, chunkSize);
+                if (rows.isEmpty()) {
+                    if (cursor == 0) {
+                        complete = true;
+                        log.info("✅ Public id backfill complete");
+                    } else {
+                        // Rows skipped after a failure are retried on the next pass
+                        cursor = 0;
+                    }
+                    break;
+                }
+
+                for (Object[] row : rows) {
+                    Long userId = ((Number) row[0]).longValue();
+                    if (assign(userId)) {
+                        assigned++;
+                        if (row[1] != null) {
+                            userCache.invalidateByFirebaseUid((String) row[1]);
+                        }
+                        userCache.invalidateByUserId(userId);
+                    }
+                    cursor = userId;
+                }
+
+                Thread.sleep(pauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("⚠️ Public id backfill stopped at user {}: {}", cursor, e.getMessage());
+        }
+
+        if (assigned > 0) {
+            log.info("Public id backfill assigned {} ids (cursor {})", assigned, cursor);
+        }
+    }
+
+    private boolean assign(Long userId) {
+        try {
+            return userRepository.assignPublicIdIfMissing(userId, publicIdPool.claim()) > 0;
+        } catch (DataIntegrityViolationException e) {
+            // Pooled id was taken elsewhere in the meantime; the next pass draws another one
+            log.warn("⚠️ Public id collision for user {}, retrying on next pass", userId);
+            return false;
+        }
+    }
+}
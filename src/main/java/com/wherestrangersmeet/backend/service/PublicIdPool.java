@@ -0,0 +1,153 @@
+package com.wherestrangersmeet.backend.service;
+
+import com.wherestrangersmeet.backend.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool of public ids that were checked against the users table in bulk, so assigning an id
+ * is a queue poll instead of one existsByPublicId round trip per random draw.
+ *
+ * Candidates are generated in batches and verified with a single IN query; taken ids are
+ * counted as collisions. The pool is topped up in the background whenever it drops below
+ * the low watermark. If it runs dry, claim() verifies a few small batches inline and
+ * gives up with an IllegalStateException if every candidate is taken.
+ *
+ * Pooled ids are not reserved in the database, so another node may take the same id in the
+ * meantime. With 36^6 ids that is vanishingly rare, and the unique constraint on public_id
+ * still rejects it.
+ */
+@Service
+public class PublicIdPool {
+
+    private static final Logger log = LoggerFactory.getLogger(PublicIdPool.class);
+    private static final char[] PUBLIC_ID_CHARS = "abcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+    private static final int PUBLIC_ID_LENGTH = 6;
+    private static final int FALLBACK_BATCH_SIZE = 16;
+    private static final int MAX_FALLBACK_ATTEMPTS = 5;
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private final UserRepository userRepository;
+    private final int targetSize;
+    private final int lowWatermark;
+    private final ConcurrentLinkedQueue<String> pool = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() is O(n); track depth separately for the gauge and watermark
+    private final AtomicInteger depth = new AtomicInteger();
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private final Counter generatedCounter;
+    private final Counter collisionCounter;
+    private final Counter fallbackCounter;
+
+    public PublicIdPool(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.public-id.pool.target-size:200}") int targetSize,
+            @Value("${app.public-id.pool.low-watermark:50}") int lowWatermark) {
+        this.userRepository = userRepository;
+        this.targetSize = targetSize;
+        this.lowWatermark = lowWatermark;
+        Gauge.builder("public_id.pool.depth", depth, AtomicInteger::get)
+                .description("Verified public ids ready to be claimed")
+                .register(meterRegistry);
+        this.generatedCounter = Counter.builder("public_id.pool.generated")
+                .description("Random public id candidates checked against the database")
+                .register(meterRegistry);
+        this.collisionCounter = Counter.builder("public_id.pool.collisions")
+                .description("Candidates rejected because the id was already taken")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("public_id.pool.fallbacks")
+                .description("Claims that found the pool empty and verified ids inline")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Take a verified-unique public id ("#" + 6 lowercase alphanumerics).
+     */
+    public String claim() {
+        String id = pool.poll();
+        if (id != null) {
+            depth.decrementAndGet();
+            return id;
+        }
+
+        fallbackCounter.increment();
+        log.warn("⚠️ Public id pool empty, verifying ids inline");
+        for (int attempt = 0; attempt < MAX_FALLBACK_ATTEMPTS; attempt++) {
+            Set<String> verified = verifiedBatch(FALLBACK_BATCH_SIZE);
+            if (!verified.isEmpty()) {
+                return verified.iterator().next();
+            }
+        }
+        // Every draw colliding means the id space is (nearly) exhausted, not bad luck
+        throw new IllegalStateException("Could not find a free public id after "
+                + MAX_FALLBACK_ATTEMPTS * FALLBACK_BATCH_SIZE + " candidates");
+    }
+
+    public int depth() {
+        return depth.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.public-id.pool.refill-interval-ms:5000}")
+    public void refill() {
+        if (depth.get() >= lowWatermark || !refillLock.tryLock()) {
+            return;
+        }
+        try {
+            int missing = targetSize - depth.get();
+            if (missing <= 0) {
+                return;
+            }
+            Set<String> verified = verifiedBatch(missing);
+            // Drop ids already sitting in the pool so a duplicate draw is never handed out twice
+            verified.removeAll(new HashSet<>(pool));
+            pool.addAll(verified);
+            depth.addAndGet(verified.size());
+            log.debug("Public id pool refilled with {} ids", verified.size());
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to refill public id pool: {}", e.getMessage());
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private Set<String> verifiedBatch(int size) {
+        Set<String> candidates = new LinkedHashSet<>();
+        while (candidates.size() < size) {
+            candidates.add("#" + randomAlphaNumeric(PUBLIC_ID_LENGTH));
+        }
+        generatedCounter.increment(candidates.size());
+
+        int before = candidates.size();
+        candidates.removeAll(userRepository.findExistingPublicIds(candidates));
+        int collisions = before - candidates.size();
+        if (collisions > 0) {
+            collisionCounter.increment(collisions);
+        }
+        return candidates;
+    }
+
+    private static String randomAlphaNumeric(int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(PUBLIC_ID_CHARS[SECURE_RANDOM.nextInt(PUBLIC_ID_CHARS.length)]);
+        }
+        return sb.toString();
+    }
+}
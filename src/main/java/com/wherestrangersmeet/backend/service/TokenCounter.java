@@ -0,0 +1,33 @@
+package com.wherestrangersmeet.backend.service;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingResult;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exact token counts for gpt-4o / gpt-4o-mini prompts (o200k_base), computed in process from
+ * the vocabulary bundled with jtokkit. Replaces the chars/4 estimate, which undercounts
+ * emoji and CJK text and overcounts plain English. The encoding is thread-safe.
+ */
+@Component
+public class TokenCounter {
+
+    private final Encoding encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.O200K_BASE);
+
+    public int count(String text) {
+        return text == null || text.isEmpty() ? 0 : encoding.countTokens(text);
+    }
+
+    /**
+     * The longest prefix of text that fits in maxTokens tokens.
+     */
+    public String truncate(String text, int maxTokens) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        EncodingResult result = encoding.encode(text, maxTokens);
+        return result.isTruncated() ? encoding.decode(result.getTokens()) : text;
+    }
+}
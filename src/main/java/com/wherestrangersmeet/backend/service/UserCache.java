@@ -1,10 +1,13 @@
 package com.wherestrangersmeet.backend.service;
 
-import com.wherestrangersmeet.backend.model.User;
+import com.wherestrangersmeet.backend.model.UserSnapshot;
 import com.wherestrangersmeet.backend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
@@ -16,16 +19,27 @@ import java.util.Optional;
 public class UserCache {
 
     private static final Logger log = LoggerFactory.getLogger(UserCache.class);
+    private static final String[] USER_CACHES = {
+            "userIdCache", "firebaseUidCache", "userSnapshotCache", "userSnapshotByFirebaseUidCache"};
+
     private final UserRepository userRepository;
+    private final CacheInvalidationBroadcaster invalidationBroadcaster;
+    private final MeProfileService meProfileService;
+    private final CacheManager cacheManager;
+
+    @PostConstruct
+    void trackForInvalidation() {
+        invalidationBroadcaster.track(USER_CACHES);
+    }
 
     /**
      * Get user ID from Firebase UID (cached for 10 minutes)
      * Saves 10-30ms per lookup
      */
-    @Cacheable(value = "userIdCache", key = "#firebaseUid")
+    @Cacheable(value = "userIdCache", key = "#firebaseUid", sync = true)
     public Long getUserId(String firebaseUid) {
-        return userRepository.findByFirebaseUid(firebaseUid)
-                .map(User::getId)
+        return userRepository.findSnapshotByFirebaseUid(firebaseUid)
+                .map(UserSnapshot::id)
                 .orElseThrow(() -> new RuntimeException("User not found: " + firebaseUid));
     }
 
@@ -33,53 +47,76 @@ public class UserCache {
      * Get Firebase UID from user ID (cached for 10 minutes)
      * Saves 10-30ms per lookup
      */
-    @Cacheable(value = "firebaseUidCache", key = "#userId")
+    @Cacheable(value = "firebaseUidCache", key = "#userId", sync = true)
     public String getFirebaseUid(Long userId) {
-        return userRepository.findById(userId)
-                .map(User::getFirebaseUid)
+        return userRepository.findSnapshotById(userId)
+                .map(UserSnapshot::firebaseUid)
                 .orElseThrow(() -> new RuntimeException("User not found: " + userId));
     }
 
     /**
-     * Get full user object (cached for 5 minutes for frequently accessed users)
+     * Get an immutable snapshot of the user's hot-path fields (cached for 10 minutes).
+     * Use this instead of loading the full entity when only uid, name, token or consent is needed.
      */
-    @Cacheable(value = "userCache", key = "#userId")
-    public Optional<User> getUserById(Long userId) {
-        return userRepository.findById(userId);
+    @Cacheable(value = "userSnapshotCache", key = "#userId", sync = true)
+    public Optional<UserSnapshot> getSnapshot(Long userId) {
+        return userRepository.findSnapshotById(userId);
     }
 
     /**
-     * Get user by Firebase UID (cached)
+     * Get user snapshot by Firebase UID (cached)
      */
-    @Cacheable(value = "userByFirebaseUidCache", key = "#firebaseUid")
-    public Optional<User> getUserByFirebaseUid(String firebaseUid) {
-        return userRepository.findByFirebaseUid(firebaseUid);
+    @Cacheable(value = "userSnapshotByFirebaseUidCache", key = "#firebaseUid", sync = true)
+    public Optional<UserSnapshot> getSnapshotByFirebaseUid(String firebaseUid) {
+        return userRepository.findSnapshotByFirebaseUid(firebaseUid);
     }
 
     /**
      * Invalidate cache when user is updated
      */
-    @CacheEvict(value = {"userIdCache", "firebaseUidCache", "userCache", "userByFirebaseUidCache"},
+    @CacheEvict(value = {"userIdCache", "firebaseUidCache", "userSnapshotCache", "userSnapshotByFirebaseUidCache"},
                 key = "#firebaseUid")
     public void invalidateByFirebaseUid(String firebaseUid) {
-        // Cache eviction handled by annotation
+        // Local eviction handled by annotation; other nodes are told through the broadcaster
+        for (String cacheName : USER_CACHES) {
+            invalidationBroadcaster.publish(cacheName, firebaseUid);
+        }
+        CacheEvictions.evictAgainAfterCommit(() -> evictLocally(firebaseUid));
+        meProfileService.invalidate(firebaseUid);
     }
 
     /**
      * Invalidate cache when user is updated
      */
-    @CacheEvict(value = {"userIdCache", "firebaseUidCache", "userCache", "userByFirebaseUidCache"},
+    @CacheEvict(value = {"userIdCache", "firebaseUidCache", "userSnapshotCache", "userSnapshotByFirebaseUidCache"},
                 key = "#userId")
     public void invalidateByUserId(Long userId) {
-        // Cache eviction handled by annotation
+        // Local eviction handled by annotation; other nodes are told through the broadcaster
+        for (String cacheName : USER_CACHES) {
+            invalidationBroadcaster.publish(cacheName, userId);
+        }
+        CacheEvictions.evictAgainAfterCommit(() -> evictLocally(userId));
+    }
+
+    private void evictLocally(Object key) {
+        for (String cacheName : USER_CACHES) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.evict(key);
+            }
+        }
     }
 
     /**
      * Clear all user caches (use sparingly, e.g., during maintenance)
      */
-    @CacheEvict(value = {"userIdCache", "firebaseUidCache", "userCache", "userByFirebaseUidCache"},
+    @CacheEvict(value = {"userIdCache", "firebaseUidCache", "userSnapshotCache", "userSnapshotByFirebaseUidCache"},
                 allEntries = true)
     public void clearAllCaches() {
+        for (String cacheName : USER_CACHES) {
+            invalidationBroadcaster.publishClear(cacheName);
+        }
+        meProfileService.invalidateAll();
         log.info("🗑️ All user caches cleared");
     }
 }
@@ -1,19 +1,24 @@
 package com.wherestrangersmeet.backend.service;
 
+import com.wherestrangersmeet.backend.model.FeedPage;
+import com.wherestrangersmeet.backend.model.FeedSlice;
+import com.wherestrangersmeet.backend.model.ProfilePhotoCheck;
 import com.wherestrangersmeet.backend.model.UserReport;
 import com.wherestrangersmeet.backend.model.User;
 import com.wherestrangersmeet.backend.model.UserPhoto;
+import com.wherestrangersmeet.backend.model.UserSnapshot;
 import com.wherestrangersmeet.backend.repository.UserReportRepository;
 import com.wherestrangersmeet.backend.repository.UserPhotoRepository;
 import com.wherestrangersmeet.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.transaction.annotation.Transactional;
 import org.hibernate.Hibernate;
 
-import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.Locale;
 
@@ -35,25 +40,24 @@ public class UserService {
     public static final String CURRENT_AI_CONSENT_VERSION = "2026-02-19";
     public static final String CURRENT_MOMO_CONSENT_VERSION = "2026-03-18";
     public static final int MAX_STICKERS_PER_USER = 20;
-    private static final char[] PUBLIC_ID_CHARS = "abcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
-    private static final int PUBLIC_ID_LENGTH = 6;
-    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
     private final UserRepository userRepository;
     private final UserReportRepository userReportRepository;
     private final UserPhotoRepository userPhotoRepository;
     private final FileStorageService fileStorageService;
-    private final OpenAIService openAIService;
     private final SimpMessagingTemplate messagingTemplate;
     private final UserCache userCache;
     private final BannedEmailService bannedEmailService;
     private final DailyPromptService dailyPromptService;
+    private final FeedSnapshotService feedSnapshotService;
+    private final FeedRankingIndex feedRankingIndex;
+    private final PublicIdPool publicIdPool;
 
     public Optional<User> getUserByFirebaseUid(String firebaseUid) {
-        return userRepository.findByFirebaseUid(firebaseUid).map(this::ensurePublicId);
+        return userRepository.findByFirebaseUid(firebaseUid);
     }
 
     public Optional<User> getUserById(Long id) {
-        return userRepository.findById(id).map(this::ensurePublicId);
+        return userRepository.findById(id);
     }
 
     public Optional<User> getUserByPublicId(String publicId) {
@@ -61,28 +65,149 @@ public class UserService {
         if (normalized == null) {
             return Optional.empty();
         }
-        return userRepository.findByPublicId(normalized).map(this::ensurePublicId);
+        return userRepository.findByPublicId(normalized);
     }
 
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
 
-    public org.springframework.data.domain.Page<User> getFeedUsers(String currentUid, int page, int size) {
+    /**
+     * Ids for one page of the discovery feed, in feed order. Render them with FeedCardService.
+     *
+     * Page 0 always recomputes (and re-ranks) the ordering; deeper pages slice the snapshot
+     * taken then. If that snapshot is gone or was replaced (snapshotVersion no longer matches),
+     * the old ordering cannot be reproduced, so the client is told to start over (410) instead
+     * of being served a slice of a different ordering with duplicates and gaps. Clients that
+     * never send a version get the plain paged query once their snapshot is gone.
+     */
+    public FeedPage getFeedUserIds(String currentUid, int page, int size, Long snapshotVersion) {
         org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(page, size);
-        java.time.LocalDate activeDate = dailyPromptService.today();
-        Optional<User> currentUser = userRepository.findByFirebaseUid(currentUid);
-        if (currentUser.isPresent()) {
-            Set<Long> excludedUserIds = getBlockedRelationshipUserIds(currentUser.get().getId());
-            if (!excludedUserIds.isEmpty()) {
-                return userRepository.findFeedUsersExcludingIds(
-                        currentUid,
-                        new ArrayList<>(excludedUserIds),
-                        activeDate,
-                        pageable);
+        Optional<UserSnapshot> viewer = userCache.getSnapshotByFirebaseUid(currentUid);
+        if (viewer.isEmpty()) {
+            return new FeedPage(userRepository.findFeedUserIds(currentUid, dailyPromptService.today(), pageable)
+                    .getContent(), null);
+        }
+
+        Long viewerId = viewer.get().id();
+        FeedSnapshotService.FeedSnapshot snapshot;
+        if (page == 0) {
+            snapshot = buildFeedSnapshot(currentUid, viewerId);
+        } else {
+            snapshot = feedSnapshotService.get(viewerId, snapshotVersion).orElse(null);
+            if (snapshotVersion == null && snapshot == null) {
+                return new FeedPage(queryFeedPage(currentUid, viewerId, pageable).getContent(), null);
+            }
+            if (snapshot == null || (snapshotVersion != null && snapshotVersion != snapshot.version())) {
+                throw new ResponseStatusException(HttpStatus.GONE, "Feed has changed, reload from the first page");
             }
         }
-        return userRepository.findByFirebaseUidNotAndPhotosIsNotEmpty(currentUid, activeDate, pageable);
+
+        long offset = pageable.getOffset();
+        List<Long> ids = new ArrayList<>(size);
+        for (long id : snapshot.slice((int) Math.min(offset, Integer.MAX_VALUE), size)) {
+            ids.add(id);
+        }
+        if (snapshot.truncated() && ids.size() < size) {
+            // Scrolled past the snapshot cap: finish its tail, then continue with the candidates it did not hold
+            List<Long> excludedIds = feedExclusions(viewerId);
+            for (long id : snapshot.candidateIds()) {
+                excludedIds.add(id);
+            }
+            long tailOffset = Math.max(0, offset - snapshot.size());
+            ids.addAll(userRepository.findFeedUserIdsPastSnapshot(
+                    currentUid, excludedIds, dailyPromptService.today(), tailOffset, size - ids.size()));
+        }
+        return new FeedPage(ids, snapshot.version());
+    }
+
+    /**
+     * Keyset-paginated feed. The cursor is the position of the last returned user:
+     * "a.<id>" while still inside the answered-today segment, "r.<id>" after it.
+     * Every page is two index-friendly "id < cursor LIMIT n" lookups at most,
+     * so deep pages cost the same as the first.
+     */
+    public FeedSlice<Long> getFeedSlice(String currentUid, String cursor, int size) {
+        Long viewerId = userCache.getSnapshotByFirebaseUid(currentUid)
+                .map(UserSnapshot::id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+
+        boolean inAnswered = true;
+        long afterId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split("\\.", 2);
+            if (parts.length != 2 || !(parts[0].equals("a") || parts[0].equals("r"))) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            inAnswered = parts[0].equals("a");
+            try {
+                afterId = Long.parseLong(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        List<Long> excludedIds = feedExclusions(viewerId);
+        java.time.LocalDate activeDate = dailyPromptService.today();
+        // Fetch one extra id to learn whether another page exists
+        int limit = size + 1;
+
+        List<Long> ids = new ArrayList<>(limit);
+        int answeredCount = 0;
+        if (inAnswered) {
+            ids.addAll(userRepository.findAnsweredFeedIds(currentUid, excludedIds, activeDate, afterId, limit));
+            answeredCount = ids.size();
+            afterId = Long.MAX_VALUE;
+        }
+        if (ids.size() < limit) {
+            ids.addAll(userRepository.findUnansweredFeedIds(
+                    currentUid, excludedIds, activeDate, afterId, limit - ids.size()));
+        }
+
+        boolean hasNext = ids.size() > size;
+        if (hasNext) {
+            ids = ids.subList(0, size);
+        }
+        String nextCursor = null;
+        if (hasNext) {
+            int lastIndex = ids.size() - 1;
+            nextCursor = (lastIndex < answeredCount ? "a." : "r.") + ids.get(lastIndex);
+        }
+
+        return new FeedSlice<>(List.copyOf(ids), nextCursor, hasNext);
+    }
+
+    private List<Long> feedExclusions(Long viewerId) {
+        List<Long> excludedIds = new ArrayList<>(getBlockedRelationshipUserIds(viewerId));
+        if (excludedIds.isEmpty()) {
+            // NOT IN () is invalid SQL; ids are positive so this never excludes anyone
+            excludedIds.add(-1L);
+        }
+        return excludedIds;
+    }
+
+    private FeedSnapshotService.FeedSnapshot buildFeedSnapshot(String currentUid, Long viewerId) {
+        List<Long> candidateIds = userRepository.findFeedCandidateIds(
+                currentUid,
+                feedExclusions(viewerId),
+                dailyPromptService.today(),
+                feedSnapshotService.getMaxCandidates());
+        long[] ranked = feedRankingIndex.rank(viewerId, candidateIds.stream().mapToLong(Long::longValue).toArray());
+        return feedSnapshotService.store(viewerId, ranked);
+    }
+
+    private org.springframework.data.domain.Page<Long> queryFeedPage(String currentUid, Long viewerId,
+            org.springframework.data.domain.Pageable pageable) {
+        java.time.LocalDate activeDate = dailyPromptService.today();
+        Set<Long> excludedUserIds = getBlockedRelationshipUserIds(viewerId);
+        if (!excludedUserIds.isEmpty()) {
+            return userRepository.findFeedUserIdsExcludingIds(
+                    currentUid,
+                    new ArrayList<>(excludedUserIds),
+                    activeDate,
+                    pageable);
+        }
+        return userRepository.findFeedUserIds(currentUid, activeDate, pageable);
     }
 
     @Transactional
@@ -134,12 +259,12 @@ public class UserService {
 
             existing = userRepository.findByFirebaseUid(firebaseUid);
             if (existing.isPresent()) {
-                return ensurePublicId(existing.get());
+                return existing.get();
             }
 
             existingByEmail = userRepository.findByEmail(normalizedEmail);
             if (existingByEmail.isPresent()) {
-                return ensurePublicId(existingByEmail.get());
+                return existingByEmail.get();
             }
 
             // If still not found, rethrow the exception
@@ -153,7 +278,6 @@ public class UserService {
             String institution, String occupationYear, String occupationDescription, List<String> interestTags) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        user = ensurePublicId(user);
 
         if (name != null && !name.trim().isEmpty()) {
             user.setName(name);
@@ -184,7 +308,6 @@ public class UserService {
     public void updateVoiceIntro(Long userId, String voiceIntroUrl) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        user = ensurePublicId(user);
         user.setVoiceIntroUrl(voiceIntroUrl);
         saveUser(user);
     }
@@ -193,7 +316,6 @@ public class UserService {
     public User updatePhoneNumber(Long id, String phoneNumber) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        user = ensurePublicId(user);
         if (phoneNumber != null && !phoneNumber.trim().isEmpty()) {
             user.setPhoneNumber(phoneNumber);
             return saveUser(user);
@@ -205,82 +327,54 @@ public class UserService {
     public User updateHidden(Long id, boolean hidden) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        user = ensurePublicId(user);
+        boolean wasHidden = Boolean.TRUE.equals(user.getHidden());
         user.setHidden(hidden);
-        return saveUser(user);
+        User saved = saveUser(user);
+        if (wasHidden && !hidden) {
+            // Reappears in every feed; hiding needs no invalidation since snapshots filter on load
+            feedSnapshotService.invalidateAll();
+        }
+        return saved;
     }
 
-    @Transactional
-    public UserPhoto addUserPhoto(Long userId, String fileKey, boolean skipVerification) {
+    /**
+     * Checks consent and gathers what the AI check needs for a new profile photo. The
+     * check itself runs as a verification job; the photo is attached once it passes.
+     */
+    @Transactional(readOnly = true)
+    public ProfilePhotoCheck prepareProfilePhotoCheck(Long userId, String fileKey) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        user = ensurePublicId(user);
-
-        String publicUrl = fileStorageService.getPublicUrl(fileKey);
 
-        // --- VERIFICATION START ---
-        if (!skipVerification) {
-            if (!hasAcceptedAiConsent(user)) {
-                throw new RuntimeException("AI consent is required before using AI verification.");
-            }
-            // 1. Gather reference URLs (existing photos) - Convert keys to Presigned URLs
-            List<String> referenceUrls = new ArrayList<>();
-            for (UserPhoto existing : user.getPhotos()) {
-                String refKey = existing.getUrl();
-                // If the stored URL is just a key, generate a presigned URL
-                String presignedRef = fileStorageService.generatePresignedUrl(refKey);
-                if (presignedRef != null) {
-                    referenceUrls.add(presignedRef);
-                }
+        if (!hasAcceptedAiConsent(user)) {
+            throw new RuntimeException("AI consent is required before using AI verification.");
+        }
+        // Gather reference URLs (existing photos) - Convert keys to Presigned URLs
+        List<String> referenceUrls = new ArrayList<>();
+        for (UserPhoto existing : user.getPhotos()) {
+            String refKey = existing.getUrl();
+            // If the stored URL is just a key, generate a presigned URL
+            String presignedRef = fileStorageService.generatePresignedUrl(refKey);
+            if (presignedRef != null) {
+                referenceUrls.add(presignedRef);
             }
+        }
 
-            // 2. Call OpenAI Service
-            try {
-                // Generate presigned URL for the NEW photo specifically for verification
-                String verificationUrl = fileStorageService.generatePresignedUrl(fileKey);
-                Map<String, Object> verificationResult;
-
-                // Check if verificationUrl is valid (starts with http)
-                if (verificationUrl != null && verificationUrl.startsWith("http")) {
-                    log.info("Verifying with URL: {}", verificationUrl);
-                    verificationResult = openAIService.verifyPhotoUrl(verificationUrl, referenceUrls);
-                } else {
-                    // Fallback: URL generation failed, use Base64
-                    log.warn("URL generation failed (returned key), falling back to Base64 verification for key: {}",
-                            fileKey);
-                    try (java.io.InputStream is = fileStorageService.downloadFile(fileKey)) {
-                        byte[] imageBytes = is.readAllBytes();
-                        String base64Image = java.util.Base64.getEncoder().encodeToString(imageBytes);
-                        // Guess mime type from extension
-                        String mimeType = "image/jpeg";
-                        if (fileKey.toLowerCase().endsWith(".png"))
-                            mimeType = "image/png";
-
-                        verificationResult = openAIService.verifyPhotoBase64(base64Image, mimeType, referenceUrls);
-                    }
-                }
-
-                log.info("Verifying new profile photo for user {} against {} references", userId, referenceUrls.size());
-
-                // 3. Check result
-                boolean isValid = (boolean) verificationResult.getOrDefault("valid", false);
-                if (!isValid) {
-                    String errorMsg = (String) verificationResult.getOrDefault("message", "Photo verification failed");
-                    log.warn("Photo verification failed for user {}: {}", userId, errorMsg);
-                    throw new RuntimeException("Verification failed: " + errorMsg);
-                }
-
-                log.info("Photo verification successful for user {}", userId);
-
-            } catch (RuntimeException e) {
-                throw e; // Re-throw our validation errors
-            } catch (Exception e) {
-                log.error("Error during profile photo verification: {}", e.getMessage());
-                // Fail safe: If AI service is down, blocking for safety as requested:
-                throw new RuntimeException("Validation service unavailable. Please try again later.");
-            }
-        } // End of if (!skipVerification)
-          // --- VERIFICATION END ---
+        // Presigned URL for the NEW photo specifically for verification
+        String verificationUrl = fileStorageService.generatePresignedUrl(fileKey);
+        return new ProfilePhotoCheck(userId, fileKey, verificationUrl, referenceUrls);
+    }
+
+    /**
+     * Saves an uploaded photo and makes it the avatar. Callers verify it first unless
+     * verification was skipped.
+     */
+    @Transactional
+    public UserPhoto attachUserPhoto(Long userId, String fileKey) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        String publicUrl = fileStorageService.getPublicUrl(fileKey);
 
         UserPhoto photo = new UserPhoto();
         photo.setUser(user);
@@ -300,7 +394,6 @@ public class UserService {
     public void deleteUserPhoto(Long userId, Long photoId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        user = ensurePublicId(user);
 
         if (user.getPhotos().size() <= 2) {
             throw new IllegalStateException("Minimum 2 photos required");
@@ -341,7 +434,6 @@ public class UserService {
         }
 
         User user = photo.getUser();
-        user = ensurePublicId(user);
         user.setAvatarUrl(photo.getUrl());
         user.setAvatarCropX(cropX);
         user.setAvatarCropY(cropY);
@@ -353,9 +445,9 @@ public class UserService {
     public void deleteUser(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        user = ensurePublicId(user);
 
         log.info("🗑️ Soft deleting user: {} ({})", user.getId(), user.getEmail());
+        String originalFirebaseUid = user.getFirebaseUid();
 
         // Delete from Firebase Auth first
         if (user.getFirebaseUid() != null) {
@@ -393,8 +485,11 @@ public class UserService {
         // Delete user photos
         user.getPhotos().clear();
 
-        // Invalidate cache before saving to prevent stale data
-        userCache.invalidateByFirebaseUid(user.getFirebaseUid());
+        // Invalidate cache before saving to prevent stale data (the UID was just anonymized,
+        // so the entries cached under the original UID must go too)
+        if (originalFirebaseUid != null) {
+            userCache.invalidateByFirebaseUid(originalFirebaseUid);
+        }
         userCache.invalidateByUserId(user.getId());
         log.info("🗑️ Cache invalidated for deleted user");
 
@@ -411,6 +506,9 @@ public class UserService {
         if (updatedRows <= 0) {
             return;
         }
+        if (isOnline) {
+            feedRankingIndex.touchLastActive(userId, now);
+        }
 
         // Broadcast presence update to ALL users via WebSocket
         Map<String, Object> presenceUpdate = new HashMap<>();
@@ -430,7 +528,6 @@ public class UserService {
     @Transactional
     public void updateFcmToken(Long userId, String token) {
         userRepository.findById(userId).ifPresent(user -> {
-            user = ensurePublicId(user);
             user.setFcmToken(token);
             saveUser(user);
         });
@@ -446,8 +543,6 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("Reporter user not found"));
         User reportedUser = userRepository.findById(reportedUserId)
                 .orElseThrow(() -> new RuntimeException("Reported user not found"));
-        reporterUser = ensurePublicId(reporterUser);
-        reportedUser = ensurePublicId(reportedUser);
 
         Optional<UserReport> existing = userReportRepository.findFirstByReporterUserIdAndReportedUserId(
                 reporterUserId, reportedUserId);
@@ -460,6 +555,7 @@ public class UserService {
         report.setReportedUser(reportedUser);
         report.setReason((reason == null || reason.isBlank()) ? "Blocked by user" : reason.trim());
         userReportRepository.save(report);
+        feedSnapshotService.invalidate(reporterUserId, reportedUserId);
         return true;
     }
 
@@ -482,6 +578,7 @@ public class UserService {
     @Transactional
     public void unblockUser(Long reporterUserId, Long blockedUserId) {
         userReportRepository.deleteByReporterUserIdAndReportedUserId(reporterUserId, blockedUserId);
+        feedSnapshotService.invalidate(reporterUserId, blockedUserId);
     }
 
     @Transactional(readOnly = true)
@@ -501,7 +598,6 @@ public class UserService {
     public List<String> getStickerKeys(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        user = ensurePublicId(user);
         return new ArrayList<>(user.getStickerKeys());
     }
 
@@ -513,7 +609,6 @@ public class UserService {
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        user = ensurePublicId(user);
 
         List<String> stickerKeys = user.getStickerKeys();
         stickerKeys.removeIf(existing -> objectKey.equals(existing));
@@ -534,7 +629,6 @@ public class UserService {
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        user = ensurePublicId(user);
 
         boolean removed = user.getStickerKeys().removeIf(existing -> objectKey.equals(existing));
         if (!removed) {
@@ -557,38 +651,13 @@ public class UserService {
             userCache.invalidateByUserId(user.getId());
         }
 
-        return userRepository.saveAndFlush(user);
-    }
-
-    private User ensurePublicId(User user) {
-        if (user.getPublicId() == null || user.getPublicId().isBlank()) {
-            return saveUser(user);
-        }
-        return user;
+        User saved = userRepository.saveAndFlush(user);
+        feedRankingIndex.markDirty(saved.getId());
+        return saved;
     }
 
     private String generateUniquePublicId() {
-        for (int attempt = 0; attempt < 20; attempt++) {
-            String candidate = "#" + randomAlphaNumeric(PUBLIC_ID_LENGTH);
-            if (!userRepository.existsByPublicId(candidate)) {
-                return candidate;
-            }
-        }
-
-        // Extremely unlikely fallback path.
-        String candidate;
-        do {
-            candidate = "#" + randomAlphaNumeric(PUBLIC_ID_LENGTH);
-        } while (userRepository.existsByPublicId(candidate));
-        return candidate;
-    }
-
-    private String randomAlphaNumeric(int length) {
-        StringBuilder sb = new StringBuilder(length);
-        for (int i = 0; i < length; i++) {
-            sb.append(PUBLIC_ID_CHARS[SECURE_RANDOM.nextInt(PUBLIC_ID_CHARS.length)]);
-        }
-        return sb.toString();
+        return publicIdPool.claim();
     }
 
     @Transactional
@@ -638,7 +707,6 @@ public class UserService {
     public User acceptAiConsent(Long userId, String requestedVersion) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        user = ensurePublicId(user);
 
         String acceptedVersion = (requestedVersion == null || requestedVersion.isBlank())
                 ? CURRENT_AI_CONSENT_VERSION
@@ -658,7 +726,6 @@ public class UserService {
     public User acceptMomoConsent(Long userId, String requestedVersion) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        user = ensurePublicId(user);
 
         String acceptedVersion = (requestedVersion == null || requestedVersion.isBlank())
                 ? CURRENT_MOMO_CONSENT_VERSION
@@ -0,0 +1,364 @@
+package com.wherestrangersmeet.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wherestrangersmeet.backend.model.ProfilePhotoCheck;
+import com.wherestrangersmeet.backend.model.StagedUpload;
+import com.wherestrangersmeet.backend.model.UserPhoto;
+import com.wherestrangersmeet.backend.model.VerificationJobUpdate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs AI photo verification as background jobs so request threads never wait on GPT-4o.
+ *
+ * Submitting returns a job id straight away. Attempts run on a small dedicated scheduler;
+ * technical errors are retried with exponential backoff by scheduling the next attempt
+ * instead of sleeping. When a job is DONE its result is pushed to the owner on
+ * /queue/verification and stays pollable until the job expires.
+ *
+ * At most max-active jobs may be unfinished at once; beyond that submissions are refused
+ * with 503, since each queued photo pair holds two staged temp files.
+ *
+ * Jobs live in memory on the node that accepted them, and the push goes through that
+ * node's simple broker. With more than one instance, polls and the WebSocket session must
+ * reach the same node (sticky sessions); elsewhere the job is reported as not found.
+ */
+@Service
+public class VerificationJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(VerificationJobService.class);
+    static final String CACHE_NAME = "verificationJobs";
+    private static final String MESSAGE_TYPE = "VERIFICATION_RESULT";
+
+    public enum Kind { PHOTO_PAIR, PROFILE_PHOTO }
+
+    public enum Status { PENDING, RUNNING, RETRYING, DONE }
+
+    private final OpenAIService openAIService;
+    private final UserService userService;
+    private final FileStorageService fileStorageService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final CacheManagementService cacheManagementService;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+    private final long waitTimeoutMs;
+    private final int maxActive;
+
+    private final ScheduledExecutorService scheduler;
+    private final Cache<String, Job> jobs;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Counter retriesCounter;
+
+    public VerificationJobService(
+            OpenAIService openAIService,
+            UserService userService,
+            FileStorageService fileStorageService,
+            SimpMessagingTemplate messagingTemplate,
+            CacheManagementService cacheManagementService,
+            MeterRegistry meterRegistry,
+            @Value("${app.verification.jobs.threads:4}") int threads,
+            @Value("${app.verification.jobs.max-attempts:3}") int maxAttempts,
+            @Value("${app.verification.jobs.backoff-ms:1000}") long backoffMs,
+            @Value("${app.verification.jobs.max-backoff-ms:8000}") long maxBackoffMs,
+            @Value("${app.verification.jobs.ttl-minutes:30}") long ttlMinutes,
+            @Value("${app.verification.jobs.wait-timeout-ms:60000}") long waitTimeoutMs,
+            @Value("${app.verification.jobs.max-active:32}") int maxActive) {
+        this.openAIService = openAIService;
+        this.userService = userService;
+        this.fileStorageService = fileStorageService;
+        this.messagingTemplate = messagingTemplate;
+        this.cacheManagementService = cacheManagementService;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.maxActive = maxActive;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "verification-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .maximumSize(10000)
+                .recordStats()
+                .build();
+        Gauge.builder("verification.jobs.active", active, AtomicInteger::get)
+                .description("Verification jobs submitted but not yet DONE")
+                .register(meterRegistry);
+        this.retriesCounter = Counter.builder("verification.jobs.retries")
+                .description("Verification attempts rescheduled after a technical error")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void register() {
+        // Jobs live on the node that runs them, so nothing is broadcast to other instances
+        cacheManagementService.register(CACHE_NAME, jobs);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Verify that two freshly taken photos show the same face. The staged files are deleted
+     * once the job is DONE, or right away if the job is refused for capacity (503); presenter
+     * shapes the final result (e.g. for non-blocking mode).
+     */
+    public Submission submitPhotoPair(String ownerUid, StagedUpload photo1, StagedUpload photo2,
+            UnaryOperator<Map<String, Object>> presenter) {
+        return submit(new Job(Kind.PHOTO_PAIR, ownerUid,
+                () -> openAIService.verifyPhotosOnce(photo1, photo2),
+                presenter,
+                () -> {
+                    photo1.delete();
+                    photo2.delete();
+                }));
+    }
+
+    /**
+     * Verify a newly uploaded profile photo against the user's existing photos and attach it
+     * when it passes. A passing result carries the saved photo under "photo".
+     */
+    public Submission submitProfilePhoto(String ownerUid, ProfilePhotoCheck check) {
+        return submit(new Job(Kind.PROFILE_PHOTO, ownerUid,
+                () -> verifyProfilePhotoOnce(check),
+                result -> attachIfValid(check, result),
+                () -> {
+                }));
+    }
+
+    /**
+     * True when a submission would be refused; lets callers answer 503 before staging uploads.
+     */
+    public boolean isAtCapacity() {
+        return active.get() >= maxActive;
+    }
+
+    /**
+     * Jobs are only visible to their owner; jobs submitted without a signed-in user are
+     * reachable by anyone holding the (unguessable) id.
+     */
+    public Optional<VerificationJobUpdate> find(String jobId, String requesterUid) {
+        Job job = jobId == null ? null : jobs.getIfPresent(jobId);
+        if (job == null || (job.ownerUid != null && !job.ownerUid.equals(requesterUid))) {
+            return Optional.empty();
+        }
+        return Optional.of(job.snapshot());
+    }
+
+    /**
+     * Hold the HTTP response open (without a request thread) until the job is done. After
+     * the wait timeout the client gets the job state as 202 and can poll or wait for the push.
+     */
+    public DeferredResult<ResponseEntity<?>> respondWhenDone(Submission submission, String ownerUid,
+            Function<VerificationJobUpdate, ResponseEntity<?>> onDone) {
+        DeferredResult<ResponseEntity<?>> deferred = new DeferredResult<>(waitTimeoutMs,
+                () -> ResponseEntity.accepted().body(find(submission.jobId(), ownerUid).orElse(submission.initial())));
+        submission.completion().thenAccept(update -> deferred.setResult(onDone.apply(update)));
+        return deferred;
+    }
+
+    /**
+     * An already-answered DeferredResult, for handlers that return early (validation, consent).
+     */
+    public static DeferredResult<ResponseEntity<?>> completed(ResponseEntity<?> response) {
+        DeferredResult<ResponseEntity<?>> deferred = new DeferredResult<>();
+        deferred.setResult(response);
+        return deferred;
+    }
+
+    private Submission submit(Job job) {
+        if (active.incrementAndGet() > maxActive) {
+            active.decrementAndGet();
+            job.cleanup.run();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Verification is busy right now. Please try again shortly.");
+        }
+        jobs.put(job.id, job);
+        scheduler.execute(() -> runAttempt(job));
+        log.info("🧾 Verification job {} ({}) submitted", job.id, job.kind);
+        return new Submission(job.id, job.snapshot(), job.completion);
+    }
+
+    private void runAttempt(Job job) {
+        job.begin();
+        Map<String, Object> result;
+        try {
+            result = job.attempt.call();
+        } catch (Exception e) {
+            log.warn("Verification job {} attempt {} failed: {}", job.id, job.attempts, e.getMessage());
+            result = new HashMap<>();
+            result.put("valid", false);
+            result.put("message", e.getMessage());
+        }
+
+        if (OpenAIService.isConclusive(result)) {
+            log.info("Verification job {} completed on attempt {} (valid: {})", job.id, job.attempts,
+                    result.get("valid"));
+            complete(job, result);
+            return;
+        }
+
+        if (job.attempts < maxAttempts) {
+            long delay = Math.min(maxBackoffMs, backoffMs << (job.attempts - 1));
+            log.info("Technical error in verification job {} on attempt {}, retrying in {}ms",
+                    job.id, job.attempts, delay);
+            job.status = Status.RETRYING;
+            retriesCounter.increment();
+            scheduler.schedule(() -> runAttempt(job), delay, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        log.error("All {} attempts failed for verification job {}", maxAttempts, job.id);
+        complete(job, openAIService.retriesExhaustedResult());
+    }
+
+    private void complete(Job job, Map<String, Object> result) {
+        Map<String, Object> finalResult;
+        try {
+            finalResult = job.finisher.apply(result);
+        } catch (RuntimeException e) {
+            log.error("Verification job {} could not be finalized: {}", job.id, e.getMessage(), e);
+            finalResult = new HashMap<>();
+            finalResult.put("valid", false);
+            finalResult.put("message", e.getMessage());
+        } finally {
+            job.cleanup.run();
+        }
+
+        job.finish(finalResult);
+        active.decrementAndGet();
+        VerificationJobUpdate update = job.snapshot();
+        if (job.ownerUid != null) {
+            try {
+                messagingTemplate.convertAndSendToUser(job.ownerUid, "/queue/verification", update);
+            } catch (Exception e) {
+                log.warn("⚠️ Failed to push verification job {} result: {}", job.id, e.getMessage());
+            }
+        }
+        job.completion.complete(update);
+    }
+
+    private Map<String, Object> verifyProfilePhotoOnce(ProfilePhotoCheck check) throws Exception {
+        String verificationUrl = check.verificationUrl();
+        // Check if verificationUrl is valid (starts with http)
+        if (verificationUrl != null && verificationUrl.startsWith("http")) {
+            log.info("Verifying with URL: {}", verificationUrl);
+            return openAIService.verifyPhotoUrl(verificationUrl, check.referenceUrls());
+        }
+
+        // Fallback: URL generation failed, use Base64
+        log.warn("URL generation failed (returned key), falling back to Base64 verification for key: {}",
+                check.fileKey());
+        // Guess mime type from extension
+        String mimeType = "image/jpeg";
+        if (check.fileKey().toLowerCase().endsWith(".png"))
+            mimeType = "image/png";
+
+        // Streamed from storage into the request body; the image is never fully in memory
+        try (InputStream is = fileStorageService.downloadFile(check.fileKey())) {
+            return openAIService.verifyPhotoStream(is, mimeType, check.referenceUrls());
+        }
+    }
+
+    private Map<String, Object> attachIfValid(ProfilePhotoCheck check, Map<String, Object> result) {
+        if (!Boolean.TRUE.equals(result.get("valid"))) {
+            log.warn("Photo verification failed for user {}: {}", check.userId(), result.get("message"));
+            return result;
+        }
+
+        log.info("Photo verification successful for user {}", check.userId());
+        UserPhoto photo = userService.attachUserPhoto(check.userId(), check.fileKey());
+        // Convert to Presigned URL for immediate display
+        if (photo.getUrl() != null) {
+            photo.setUrl(fileStorageService.generatePresignedUrl(photo.getUrl()));
+        }
+        Map<String, Object> withPhoto = new HashMap<>(result);
+        withPhoto.put("photo", photo);
+        return withPhoto;
+    }
+
+    /**
+     * A submitted job: its id, its state at submission, and a future completed with the
+     * DONE state (for callers that can hold a DeferredResult open).
+     */
+    public record Submission(String jobId, VerificationJobUpdate initial,
+            CompletableFuture<VerificationJobUpdate> completion) {
+    }
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final Kind kind;
+        final String ownerUid;
+        final Callable<Map<String, Object>> attempt;
+        final UnaryOperator<Map<String, Object>> finisher;
+        final Runnable cleanup;
+        final CompletableFuture<VerificationJobUpdate> completion = new CompletableFuture<>();
+
+        volatile Status status = Status.PENDING;
+        volatile int attempts;
+        volatile Map<String, Object> result;
+        volatile LocalDateTime updatedAt = LocalDateTime.now();
+
+        Job(Kind kind, String ownerUid, Callable<Map<String, Object>> attempt,
+                UnaryOperator<Map<String, Object>> finisher, Runnable cleanup) {
+            this.kind = kind;
+            this.ownerUid = ownerUid;
+            this.attempt = attempt;
+            this.finisher = Objects.requireNonNullElse(finisher, UnaryOperator.identity());
+            this.cleanup = cleanup;
+        }
+
+        void begin() {
+            attempts++;
+            status = Status.RUNNING;
+            updatedAt = LocalDateTime.now();
+        }
+
+        void finish(Map<String, Object> finalResult) {
+            result = finalResult;
+            status = Status.DONE;
+            updatedAt = LocalDateTime.now();
+        }
+
+        VerificationJobUpdate snapshot() {
+            return new VerificationJobUpdate(MESSAGE_TYPE, id, kind.name(), status.name(), attempts, result,
+                    updatedAt);
+        }
+    }
+}
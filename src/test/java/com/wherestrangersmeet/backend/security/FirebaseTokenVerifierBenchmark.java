@@ -0,0 +1,115 @@
+package com.wherestrangersmeet.backend.security;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+import com.wherestrangersmeet.backend.service.CacheManagementService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares a cached {@link FirebaseTokenVerifier#verify} against the RS256 signature
+ * check every request paid before the cache. FirebaseAuth is mocked, so the baseline
+ * measures only the signature check on a token-sized payload (no claim parsing or key
+ * lookup), which makes it a lower bound on the avoided cost.
+ *
+ * Run with:
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp "target/test-classes:target/classes:$(cat target/cp.txt)" org.openjdk.jmh.Main FirebaseTokenVerifierBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FirebaseTokenVerifierBenchmark {
+
+    private FirebaseTokenVerifier verifier;
+    private String idToken;
+    private KeyPair keys;
+    private byte[] signingInput;
+    private byte[] signature;
+
+    @Setup
+    public void setUp() throws Exception {
+        long exp = System.currentTimeMillis() / 1000 + 3600;
+        String header = base64Url("{\"alg\":\"RS256\",\"kid\":\"benchmark\",\"typ\":\"JWT\"}");
+        String payload = base64Url("{\"iss\":\"https://securetoken.google.com/wherestrangersmeet\","
+                + "\"aud\":\"wherestrangersmeet\",\"auth_time\":" + (exp - 3600)
+                + ",\"user_id\":\"k3Jd9sLq0PZxYwVb7RtN2mHcE1u2\",\"sub\":\"k3Jd9sLq0PZxYwVb7RtN2mHcE1u2\","
+                + "\"iat\":" + (exp - 3600) + ",\"exp\":" + exp + ",\"email\":\"stranger@example.com\","
+                + "\"email_verified\":true,\"firebase\":{\"identities\":{\"email\":[\"stranger@example.com\"]},"
+                + "\"sign_in_provider\":\"password\"}}");
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keys = generator.generateKeyPair();
+        signingInput = (header + "." + payload).getBytes(StandardCharsets.US_ASCII);
+        Signature signer = Signature.getInstance("SHA256withRSA");
+        signer.initSign(keys.getPrivate());
+        signer.update(signingInput);
+        signature = signer.sign();
+        idToken = header + "." + payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+
+        FirebaseToken token = mock(FirebaseToken.class);
+        when(token.getClaims()).thenReturn(Map.of("exp", exp));
+        FirebaseAuth firebaseAuth = mock(FirebaseAuth.class);
+        when(firebaseAuth.verifyIdToken(anyString())).thenReturn(token);
+
+        verifier = new FirebaseTokenVerifier(firebaseAuth,
+                new CacheManagementService(new ConcurrentMapCacheManager(), new SimpleMeterRegistry()),
+                false, 60, 50_000);
+        verifier.registerCache();
+        verifier.verify(idToken);
+    }
+
+    @Benchmark
+    public FirebaseToken cachedVerify() throws FirebaseAuthException {
+        return verifier.verify(idToken);
+    }
+
+    @Benchmark
+    public boolean signatureCheck() throws GeneralSecurityException {
+        Signature verify = Signature.getInstance("SHA256withRSA");
+        verify.initVerify(keys.getPublic());
+        verify.update(signingInput);
+        return verify.verify(signature);
+    }
+
+    private static String base64Url(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FirebaseTokenVerifierBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
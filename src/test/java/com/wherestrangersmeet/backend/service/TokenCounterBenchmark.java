@@ -0,0 +1,88 @@
+package com.wherestrangersmeet.backend.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of exact o200k_base counting against the chars/4 estimate it replaced, on a
+ * transcript line and a 30-message transcript of mixed English, emoji and CJK chat, plus
+ * the per-message truncate that AiService applies to every line.
+ *
+ * Run with:
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp "target/test-classes:target/classes:$(cat target/cp.txt)" org.openjdk.jmh.Main TokenCounterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenCounterBenchmark {
+
+    private static final String[] LINES = {
+            "[Aisha]: are you free this saturday? there's a night market near the river 🎉\n",
+            "[Ken]: 好啊！我周六下午有空，晚上七点可以吗？\n",
+            "[Aisha] (Replying to: \"好啊！我周六下午有空，晚上七点可以吗？\"): 7 works, I'll bring my camera 📷\n",
+            "[Ken]: perfect. also did you finish that book, the one about the lighthouse keeper?\n",
+            "[Aisha]: almost!! the ending is killing me 😭😭 no spoilers pls\n",
+    };
+
+    private TokenCounter tokenCounter;
+    private String line;
+    private String transcript;
+    private String longMessage;
+
+    @Setup
+    public void setUp() {
+        tokenCounter = new TokenCounter();
+        line = LINES[0];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            sb.append(LINES[i % LINES.length]);
+        }
+        transcript = sb.toString();
+        longMessage = transcript.repeat(4);
+        // Load the vocabulary outside the measurement
+        tokenCounter.count(line);
+    }
+
+    @Benchmark
+    public int estimateLine() {
+        return line.length() / 4;
+    }
+
+    @Benchmark
+    public int countLine() {
+        return tokenCounter.count(line);
+    }
+
+    @Benchmark
+    public int countTranscript() {
+        return tokenCounter.count(transcript);
+    }
+
+    @Benchmark
+    public String truncateLongMessage() {
+        return tokenCounter.truncate(longMessage, 500);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenCounterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
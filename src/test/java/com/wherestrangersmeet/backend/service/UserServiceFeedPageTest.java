@@ -0,0 +1,116 @@
+package com.wherestrangersmeet.backend.service;
+
+import com.wherestrangersmeet.backend.model.FeedPage;
+import com.wherestrangersmeet.backend.model.User;
+import com.wherestrangersmeet.backend.model.UserPhoto;
+import com.wherestrangersmeet.backend.model.UserSnapshot;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Deep pages of the offset feed: the snapshot tail must be served before the paged query
+ * takes over past the cap, and that query must not repeat anyone the snapshot held.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(UserService.class)
+class UserServiceFeedPageTest {
+
+    private static final String VIEWER_UID = "viewer-uid";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockBean
+    private FileStorageService fileStorageService;
+    @MockBean
+    private SimpMessagingTemplate messagingTemplate;
+    @MockBean
+    private UserCache userCache;
+    @MockBean
+    private BannedEmailService bannedEmailService;
+    @MockBean
+    private DailyPromptService dailyPromptService;
+    @MockBean
+    private FeedSnapshotService feedSnapshotService;
+    @MockBean
+    private FeedRankingIndex feedRankingIndex;
+    @MockBean
+    private PublicIdPool publicIdPool;
+
+    private Long viewerId;
+    // Feed users in the paged query's order (id DESC)
+    private final List<Long> feedIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        viewerId = persistUser(VIEWER_UID, "#view00").getId();
+        for (int i = 0; i < 8; i++) {
+            feedIds.add(0, persistUser("uid-" + i, "#feed0" + i).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        when(userCache.getSnapshotByFirebaseUid(VIEWER_UID)).thenReturn(Optional.of(
+                new UserSnapshot(viewerId, VIEWER_UID, "viewer", null, false, null, false, null, null)));
+        when(dailyPromptService.today()).thenReturn(LocalDate.now());
+    }
+
+    @Test
+    void pageStraddlingTheCapServesTheSnapshotTailFirst() {
+        // A truncated snapshot of the first four candidates, re-ranked into a different order
+        long[] ranked = { feedIds.get(2), feedIds.get(0), feedIds.get(3), feedIds.get(1) };
+        when(feedSnapshotService.get(eq(viewerId), any()))
+                .thenReturn(Optional.of(new FeedSnapshotService.FeedSnapshot(ranked, true, 7L)));
+
+        FeedPage straddling = userService.getFeedUserIds(VIEWER_UID, 1, 3, 7L);
+        FeedPage past = userService.getFeedUserIds(VIEWER_UID, 2, 3, 7L);
+
+        assertThat(straddling.ids()).containsExactly(feedIds.get(1), feedIds.get(4), feedIds.get(5));
+        assertThat(past.ids()).containsExactly(feedIds.get(6), feedIds.get(7));
+        assertThat(straddling.snapshotVersion()).isEqualTo(7L);
+    }
+
+    @Test
+    void requestWithoutVersionFallsBackToPagedQueryWhenSnapshotIsGone() {
+        when(feedSnapshotService.get(eq(viewerId), any())).thenReturn(Optional.empty());
+
+        FeedPage page = userService.getFeedUserIds(VIEWER_UID, 1, 3, null);
+
+        assertThat(page.ids()).containsExactly(feedIds.get(3), feedIds.get(4), feedIds.get(5));
+        assertThat(page.snapshotVersion()).isNull();
+    }
+
+    private User persistUser(String firebaseUid, String publicId) {
+        User created = new User();
+        created.setFirebaseUid(firebaseUid);
+        created.setEmail(firebaseUid + "@example.com");
+        created.setName(firebaseUid);
+        created.setPublicId(publicId);
+        entityManager.persist(created);
+
+        UserPhoto photo = new UserPhoto();
+        photo.setUser(created);
+        photo.setUrl("https://example.com/" + firebaseUid + ".jpg");
+        entityManager.persist(photo);
+        return created;
+    }
+}
@@ -0,0 +1,104 @@
+package com.wherestrangersmeet.backend.service;
+
+import com.wherestrangersmeet.backend.model.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Lookups must stay pure reads, including for legacy users without a public id; those
+ * are assigned by PublicIdBackfillJob instead.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(UserService.class)
+class UserServiceReadPathTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockBean
+    private FileStorageService fileStorageService;
+    @MockBean
+    private SimpMessagingTemplate messagingTemplate;
+    @MockBean
+    private UserCache userCache;
+    @MockBean
+    private BannedEmailService bannedEmailService;
+    @MockBean
+    private DailyPromptService dailyPromptService;
+    @MockBean
+    private FeedSnapshotService feedSnapshotService;
+    @MockBean
+    private FeedRankingIndex feedRankingIndex;
+    @MockBean
+    private PublicIdPool publicIdPool;
+
+    private Statistics statistics;
+    private User legacyUser;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        // Rows created before the column existed have no public id
+        entityManager.createNativeQuery("ALTER TABLE users ALTER COLUMN public_id SET NULL").executeUpdate();
+
+        legacyUser = persistUser("legacy-uid", "legacy@example.com", "#legacy");
+        user = persistUser("current-uid", "current@example.com", "#abc123");
+        entityManager.flush();
+        entityManager.createNativeQuery("UPDATE users SET public_id = NULL WHERE id = :id")
+                .setParameter("id", legacyUser.getId())
+                .executeUpdate();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void lookupsDoNotWrite() {
+        assertThat(userService.getUserById(legacyUser.getId())).isPresent();
+        assertThat(userService.getUserByFirebaseUid("legacy-uid")).isPresent();
+        assertThat(userService.getUserByPublicId("abc123")).isPresent();
+        assertThat(userService.getStickerKeys(legacyUser.getId())).isEmpty();
+        assertThat(userService.getStickerKeys(user.getId())).isEmpty();
+        assertThat(userService.getBlockedUsers(legacyUser.getId())).isEmpty();
+        userService.hasAcceptedMomoConsent(legacyUser.getId());
+        entityManager.flush();
+
+        assertThat(statistics.getPrepareStatementCount()).isPositive();
+        assertThat(statistics.getEntityInsertCount()).isZero();
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(statistics.getCollectionUpdateCount()).isZero();
+        assertThat(entityManager.find(User.class, legacyUser.getId()).getPublicId()).isNull();
+        verify(publicIdPool, never()).claim();
+        verify(userCache, never()).invalidateByUserId(any());
+    }
+
+    private User persistUser(String firebaseUid, String email, String publicId) {
+        User created = new User();
+        created.setFirebaseUid(firebaseUid);
+        created.setEmail(email);
+        created.setName(email.split("@")[0]);
+        created.setPublicId(publicId);
+        entityManager.persist(created);
+        return created;
+    }
+}